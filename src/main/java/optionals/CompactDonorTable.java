@@ -0,0 +1,218 @@
+package optionals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Column oriented storage for large donor imports.
+ *
+ * A {@link Donor} object costs a header, five references and a boxed Boolean even when
+ * most of its fields are null. This table stores each field as a column instead:
+ * - names are dictionary encoded into int ids, repeated names are only stored once
+ * - the primary flag, and whether it's set at all, live in two BitSets
+ * - giving account values are mostly the default of zero and successors are mostly null,
+ *   so only the rows that differ from the default are stored. A presence bitset says which
+ *   rows those are, and the number of set bits before a row is its index in the values
+ *
+ * Rows are append only and this class is not thread safe.
+ */
+public class CompactDonorTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final StringDictionary names = new StringDictionary();
+    private int[] firstNameIds = new int[INITIAL_CAPACITY];
+    private int[] lastNameIds = new int[INITIAL_CAPACITY];
+    private final BitSet hasPrimaryFlag = new BitSet();
+    private final BitSet primary = new BitSet();
+    private final SparseColumn<BigDecimal> givingAccountValues = new SparseColumn<>(BigDecimal.ZERO);
+    private final SparseColumn<Successor> successors = new SparseColumn<>(null);
+    private int size;
+
+    /**
+     * Appends a donor to the table.
+     *
+     * @param donor the donor to store
+     * @return the row of the donor
+     */
+    public int add(Donor donor) {
+        ensureCapacity(size + 1);
+
+        int row = size++;
+        firstNameIds[row] = names.encode(donor.getFirstName());
+        lastNameIds[row] = names.encode(donor.getLastName());
+
+        if (null != donor.getPrimary()) {
+            hasPrimaryFlag.set(row);
+            primary.set(row, donor.getPrimary());
+        }
+
+        givingAccountValues.put(row, donor.getGivingAccountValue());
+        successors.put(row, donor.getSuccessor());
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getFirstName(int row) {
+        return names.decode(firstNameIds[checkRow(row)]);
+    }
+
+    public String getLastName(int row) {
+        return names.decode(lastNameIds[checkRow(row)]);
+    }
+
+    public Boolean getPrimary(int row) {
+        checkRow(row);
+        return hasPrimaryFlag.get(row) ? primary.get(row) : null;
+    }
+
+    public BigDecimal getGivingAccountValue(int row) {
+        return givingAccountValues.get(checkRow(row));
+    }
+
+    public Successor getSuccessor(int row) {
+        return successors.get(checkRow(row));
+    }
+
+    // How many giving account values are actually stored, for tests
+    int storedGivingAccountValues() {
+        return givingAccountValues.size;
+    }
+
+    /**
+     * @return the number of donors flagged as primary
+     */
+    public int primaryCount() {
+        return primary.cardinality();
+    }
+
+    /**
+     * Builds a regular {@link Donor} for one row. The donor is a copy,
+     * changing it won't change the table.
+     *
+     * @param row the row to read
+     * @return the donor stored in that row
+     */
+    public Donor getDonor(int row) {
+        return new Donor(
+                getFirstName(row),
+                getLastName(row),
+                getPrimary(row),
+                getGivingAccountValue(row),
+                getSuccessor(row)
+        );
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for size " + size);
+        }
+        return row;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > firstNameIds.length) {
+            int newCapacity = Math.max(capacity, firstNameIds.length * 2);
+            firstNameIds = Arrays.copyOf(firstNameIds, newCapacity);
+            lastNameIds = Arrays.copyOf(lastNameIds, newCapacity);
+        }
+    }
+
+    /*
+    Maps each distinct string to an int id, so a name shared by a million donors
+    is only stored once.
+     */
+    private static class StringDictionary {
+
+        private static final int NULL_ID = -1;
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (null == value) {
+                return NULL_ID;
+            }
+
+            Integer id = ids.get(value);
+            if (null == id) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        String decode(int id) {
+            return id == NULL_ID ? null : values.get(id);
+        }
+    }
+
+    /*
+    Only keeps the rows whose value isn't the default. Which rows those are is kept in
+    a bitset, one bit per row, along with the number of set bits before each 64 bit word.
+    The values are stored densely in row order, so a row's value is at the index
+    given by the number of set bits before it: the count of the earlier words
+    plus a bit count within the row's own word.
+     */
+    private static class SparseColumn<V> {
+
+        private final V defaultValue;
+        private long[] present = new long[1];
+        private int[] rankBeforeWord = new int[1];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int size;
+        // The last word with a value, the ranks after it aren't filled in yet
+        private int lastWord;
+
+        SparseColumn(V defaultValue) {
+            this.defaultValue = defaultValue;
+        }
+
+        // Rows are always added in increasing order
+        void put(int row, V value) {
+            if (Objects.equals(defaultValue, value)) {
+                return;
+            }
+
+            int word = row >>> 6;
+            if (word >= present.length) {
+                int newLength = Math.max(word + 1, present.length * 2);
+                present = Arrays.copyOf(present, newLength);
+                rankBeforeWord = Arrays.copyOf(rankBeforeWord, newLength);
+            }
+            if (word > lastWord) {
+                // Every value stored so far comes before the words up to this one
+                Arrays.fill(rankBeforeWord, lastWord + 1, word + 1, size);
+                lastWord = word;
+            }
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            present[word] |= 1L << row;
+            values[size++] = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(int row) {
+            int word = row >>> 6;
+            if (word >= present.length || (present[word] & (1L << row)) == 0) {
+                return defaultValue;
+            }
+
+            int rank = rankBeforeWord[word] + Long.bitCount(present[word] & ((1L << row) - 1));
+            return (V) values[rank];
+        }
+    }
+}
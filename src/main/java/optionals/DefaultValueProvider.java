@@ -0,0 +1,108 @@
+package optionals;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Builds expensive default values once per key and shares them between threads
+ * until they expire.
+ *
+ * orElseGet() already avoids building the default when a value is present,
+ * but every empty Optional still builds its own copy. With a provider the
+ * fallback is only built the first time a key is seen (or after its TTL runs out):
+ * <pre>
+ *     Successor successor = Optional
+ *             .ofNullable(donor.getSuccessor())
+ *             .orElseGet(defaultSuccessors.supplierFor(donor.getLastName()));
+ * </pre>
+ *
+ * @param <K> the key the default value depends on
+ * @param <V> the type of the default value
+ */
+public class DefaultValueProvider<K, V> {
+
+    private final Function<? super K, ? extends V> defaultFactory;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<K, Entry<V>> defaults = new ConcurrentHashMap<>();
+
+    public DefaultValueProvider(Function<? super K, ? extends V> defaultFactory, Duration ttl) {
+        this(defaultFactory, ttl, System::nanoTime);
+    }
+
+    DefaultValueProvider(Function<? super K, ? extends V> defaultFactory, Duration ttl, LongSupplier nanoClock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("The TTL must be positive");
+        }
+
+        this.defaultFactory = Objects.requireNonNull(defaultFactory);
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the default value for the key, building it if it's missing or expired.
+     * Concurrent callers asking for the same key wait for a single build.
+     *
+     * @param key the key of the default value
+     * @return the shared default value
+     */
+    public V get(K key) {
+        long now = nanoClock.getAsLong();
+
+        // Fast path, no locking when the value is still fresh
+        Entry<V> entry = defaults.get(key);
+        if (null != entry && !entry.isExpiredAt(now)) {
+            return entry.value;
+        }
+
+        return defaults.compute(key, (k, current) -> {
+            if (null != current && !current.isExpiredAt(now)) {
+                return current; // Someone else rebuilt it while we were waiting
+            }
+            return new Entry<>(defaultFactory.apply(k), now + ttlNanos);
+        }).value;
+    }
+
+    /**
+     * @param key the key of the default value
+     * @return a supplier that can be handed to {@link java.util.Optional#orElseGet(Supplier)}
+     */
+    public Supplier<V> supplierFor(K key) {
+        return () -> get(key);
+    }
+
+    /**
+     * Drops every expired value. Expired values are rebuilt on read anyway,
+     * this only releases the memory of keys that are no longer asked for.
+     */
+    public void evictExpired() {
+        long now = nanoClock.getAsLong();
+        defaults.values().removeIf(entry -> entry.isExpiredAt(now));
+    }
+
+    int size() {
+        return defaults.size();
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        // Compare the difference rather than the values, nanoTime() can overflow
+        private boolean isExpiredAt(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
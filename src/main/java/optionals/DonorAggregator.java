@@ -0,0 +1,169 @@
+package optionals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Totals, averages and buckets the giving account values of donors in parallel.
+ *
+ * Compared to {@code stream().map(Donor::getGivingAccountValue).reduce(BigDecimal.ZERO, BigDecimal::add)}
+ * each fork/join task keeps its running sum as a long of cents, so adding a value doesn't
+ * allocate a new BigDecimal. Values with more than 2 decimal places, or sums too large for a long,
+ * spill over into a BigDecimal so the result is always exact.
+ */
+public class DonorAggregator {
+
+    // Fewer donors than this aren't worth splitting across threads
+    private static final int SEQUENTIAL_THRESHOLD = 10_000;
+
+    private final ForkJoinPool pool;
+
+    public DonorAggregator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public DonorAggregator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Aggregates the giving account values of the donors, bucketed by {@link Donor#getPrimary()}.
+     * Null values count as zero, donors with a null primary flag count as non-primary.
+     *
+     * @param donors the donors to aggregate
+     * @return the totals
+     */
+    public DonorTotals aggregate(List<Donor> donors) {
+        // Splitting a LinkedList by index would be quadratic
+        List<Donor> indexed = donors instanceof RandomAccess ? donors : new ArrayList<>(donors);
+
+        Accumulator result = pool.invoke(new AggregateTask(indexed, 0, indexed.size()));
+        return result.toTotals();
+    }
+
+    private static class AggregateTask extends RecursiveTask<Accumulator> {
+
+        private final List<Donor> donors;
+        private final int from;
+        private final int to;
+
+        private AggregateTask(List<Donor> donors, int from, int to) {
+            this.donors = donors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                Accumulator accumulator = new Accumulator();
+                for (int i = from; i < to; i++) {
+                    accumulator.add(donors.get(i));
+                }
+                return accumulator;
+            }
+
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(donors, from, middle);
+            left.fork();
+            Accumulator right = new AggregateTask(donors, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /*
+    Keeps a primary and a non-primary sum for one slice of the donors.
+    Not thread safe, every task gets its own accumulator and they are merged on join.
+     */
+    static class Accumulator {
+
+        private final ScaledSum primary = new ScaledSum();
+        private final ScaledSum nonPrimary = new ScaledSum();
+        private long primaryCount;
+        private long nonPrimaryCount;
+
+        void add(Donor donor) {
+            if (Boolean.TRUE.equals(donor.getPrimary())) {
+                primary.add(donor.getGivingAccountValue());
+                primaryCount++;
+            } else {
+                nonPrimary.add(donor.getGivingAccountValue());
+                nonPrimaryCount++;
+            }
+        }
+
+        Accumulator merge(Accumulator other) {
+            primary.merge(other.primary);
+            nonPrimary.merge(other.nonPrimary);
+            primaryCount += other.primaryCount;
+            nonPrimaryCount += other.nonPrimaryCount;
+            return this;
+        }
+
+        DonorTotals toTotals() {
+            return new DonorTotals(primary.toBigDecimal(), primaryCount, nonPrimary.toBigDecimal(), nonPrimaryCount);
+        }
+    }
+
+    /*
+    An exact sum stored as a long number of cents, plus a BigDecimal for anything
+    that doesn't fit: values with more than SCALE decimals and long overflows.
+     */
+    static class ScaledSum {
+
+        private static final int SCALE = 2;
+        // Any number with at most this many digits fits in a long
+        private static final int MAX_LONG_DIGITS = 18;
+
+        private long cents;
+        private BigDecimal overflow = BigDecimal.ZERO;
+
+        void add(BigDecimal value) {
+            if (null == value || value.signum() == 0) {
+                return;
+            }
+
+            if (value.scale() > SCALE) {
+                overflow = overflow.add(value);
+                return;
+            }
+
+            BigDecimal scaled = value.movePointRight(SCALE);
+            if (scaled.precision() > MAX_LONG_DIGITS) {
+                overflow = overflow.add(value);
+                return;
+            }
+
+            addCents(scaled.longValue());
+        }
+
+        void merge(ScaledSum other) {
+            addCents(other.cents);
+            if (other.overflow.signum() != 0) {
+                overflow = overflow.add(other.overflow);
+            }
+        }
+
+        private void addCents(long value) {
+            long sum = cents + value;
+
+            // Same check as Math.addExact, without the exception
+            if (((cents ^ sum) & (value ^ sum)) < 0) {
+                overflow = overflow.add(BigDecimal.valueOf(cents, SCALE));
+                cents = value;
+                return;
+            }
+
+            cents = sum;
+        }
+
+        BigDecimal toBigDecimal() {
+            BigDecimal total = BigDecimal.valueOf(cents, SCALE);
+            return overflow.signum() == 0 ? total : total.add(overflow);
+        }
+    }
+}
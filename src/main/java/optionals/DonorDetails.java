@@ -0,0 +1,36 @@
+package optionals;
+
+import java.math.BigDecimal;
+
+/**
+ * The slow-to-load part of a donor: their giving account value and successor.
+ * Returned by a {@link DonorDetailsLoader}.
+ */
+public class DonorDetails {
+
+    static final DonorDetails EMPTY = new DonorDetails(BigDecimal.ZERO, null);
+
+    private final BigDecimal givingAccountValue;
+    private final Successor successor;
+
+    public DonorDetails(BigDecimal givingAccountValue, Successor successor) {
+        this.givingAccountValue = null == givingAccountValue ? BigDecimal.ZERO : givingAccountValue;
+        this.successor = successor;
+    }
+
+    public BigDecimal getGivingAccountValue() {
+        return givingAccountValue;
+    }
+
+    public Successor getSuccessor() {
+        return successor;
+    }
+
+    @Override
+    public String toString() {
+        return "DonorDetails{" +
+                "givingAccountValue=" + givingAccountValue +
+                ", successor=" + successor +
+                '}';
+    }
+}
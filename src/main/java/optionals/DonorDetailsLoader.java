@@ -0,0 +1,19 @@
+package optionals;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches {@link DonorDetails} from wherever they are stored (database, remote service, etc.).
+ */
+@FunctionalInterface
+public interface DonorDetailsLoader {
+
+    /**
+     * Loads the details for a group of donors in one round trip.
+     *
+     * @param donors the donors whose details are needed
+     * @return the details keyed by donor. Donors missing from the map are treated as having no details.
+     */
+    Map<LazyDonor, DonorDetails> loadAll(List<LazyDonor> donors);
+}
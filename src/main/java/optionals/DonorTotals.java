@@ -0,0 +1,79 @@
+package optionals;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * The result of aggregating the giving account values of a group of donors.
+ */
+public class DonorTotals {
+
+    private final BigDecimal primaryTotal;
+    private final long primaryCount;
+    private final BigDecimal nonPrimaryTotal;
+    private final long nonPrimaryCount;
+
+    DonorTotals(BigDecimal primaryTotal, long primaryCount, BigDecimal nonPrimaryTotal, long nonPrimaryCount) {
+        this.primaryTotal = primaryTotal;
+        this.primaryCount = primaryCount;
+        this.nonPrimaryTotal = nonPrimaryTotal;
+        this.nonPrimaryCount = nonPrimaryCount;
+    }
+
+    public BigDecimal getTotal() {
+        return primaryTotal.add(nonPrimaryTotal);
+    }
+
+    public long getCount() {
+        return primaryCount + nonPrimaryCount;
+    }
+
+    /**
+     * @return the average giving account value, or zero if there were no donors
+     */
+    public BigDecimal getAverage() {
+        return average(getTotal(), getCount());
+    }
+
+    public BigDecimal getPrimaryTotal() {
+        return primaryTotal;
+    }
+
+    public long getPrimaryCount() {
+        return primaryCount;
+    }
+
+    public BigDecimal getPrimaryAverage() {
+        return average(primaryTotal, primaryCount);
+    }
+
+    public BigDecimal getNonPrimaryTotal() {
+        return nonPrimaryTotal;
+    }
+
+    public long getNonPrimaryCount() {
+        return nonPrimaryCount;
+    }
+
+    public BigDecimal getNonPrimaryAverage() {
+        return average(nonPrimaryTotal, nonPrimaryCount);
+    }
+
+    private static BigDecimal average(BigDecimal total, long count) {
+        if (count == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        return total.divide(BigDecimal.valueOf(count), MathContext.DECIMAL128);
+    }
+
+    @Override
+    public String toString() {
+        return "DonorTotals{" +
+                "primaryTotal=" + primaryTotal +
+                ", primaryCount=" + primaryCount +
+                ", nonPrimaryTotal=" + nonPrimaryTotal +
+                ", nonPrimaryCount=" + nonPrimaryCount +
+                '}';
+    }
+}
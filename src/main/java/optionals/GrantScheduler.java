@@ -0,0 +1,103 @@
+package optionals;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds pending grants in one bucket per day, keyed on {@link LocalDate#toEpochDay()}.
+ *
+ * Polling a day only touches the grants due on that day, no matter how many grants
+ * are scheduled further out. Grants without a schedule date skip the buckets entirely
+ * and wait in their own lane, so they are never stuck behind a large backlog of dated grants.
+ */
+public class GrantScheduler {
+
+    private final Map<Long, List<Grant>> dueByEpochDay = new HashMap<>();
+    private final Deque<Grant> unscheduled = new ArrayDeque<>();
+
+    // The first day that hasn't been polled yet
+    private long nextDay;
+    private int scheduledCount;
+
+    /**
+     * @param firstDay the first day that will be polled
+     */
+    public GrantScheduler(LocalDate firstDay) {
+        this.nextDay = firstDay.toEpochDay();
+    }
+
+    /**
+     * Adds a grant to the scheduler. The schedule date is read once, changing it
+     * afterwards won't move the grant.
+     * Grants scheduled for a day that was already polled are due on the next poll.
+     *
+     * @param grant the grant to schedule
+     */
+    public synchronized void schedule(Grant grant) {
+        if (grant.getScheduleDate().isEmpty()) {
+            unscheduled.addLast(grant);
+            return;
+        }
+
+        long day = Math.max(grant.getScheduleDate().get().toEpochDay(), nextDay);
+        dueByEpochDay.computeIfAbsent(day, d -> new ArrayList<>()).add(grant);
+        scheduledCount++;
+    }
+
+    /**
+     * Removes and returns every dated grant due on or before the given day.
+     *
+     * @param today the day to process
+     * @return the grants that are due, in day order
+     */
+    public synchronized List<Grant> pollDue(LocalDate today) {
+        long lastDay = today.toEpochDay();
+        List<Grant> due = new ArrayList<>();
+
+        // Walk the days since the last poll. There's nothing to do when
+        // the scheduler is empty, so skip straight to the end
+        for (; nextDay <= lastDay && scheduledCount > 0; nextDay++) {
+            List<Grant> bucket = dueByEpochDay.remove(nextDay);
+            if (null != bucket) {
+                due.addAll(bucket);
+                scheduledCount -= bucket.size();
+            }
+        }
+
+        nextDay = Math.max(nextDay, lastDay + 1);
+        return due;
+    }
+
+    /**
+     * Removes and returns up to {@code max} grants that don't have a schedule date.
+     *
+     * @param max the maximum number of grants to return
+     * @return the unscheduled grants, in the order they were added
+     */
+    public synchronized List<Grant> pollUnscheduled(int max) {
+        List<Grant> grants = new ArrayList<>(Math.min(max, unscheduled.size()));
+        while (grants.size() < max && !unscheduled.isEmpty()) {
+            grants.add(unscheduled.pollFirst());
+        }
+        return grants;
+    }
+
+    /**
+     * @return the number of dated grants still waiting
+     */
+    public synchronized int scheduledCount() {
+        return scheduledCount;
+    }
+
+    /**
+     * @return the number of grants without a schedule date still waiting
+     */
+    public synchronized int unscheduledCount() {
+        return unscheduled.size();
+    }
+}
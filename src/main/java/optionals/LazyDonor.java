@@ -0,0 +1,64 @@
+package optionals;
+
+import java.math.BigDecimal;
+
+/**
+ * A {@link Donor} whose giving account value and successor are only fetched
+ * the first time someone asks for them.
+ *
+ * Instances are created through a {@link LazyDonorBatch}, so touching one donor
+ * loads the details of its untouched neighbours in the same round trip.
+ */
+public class LazyDonor extends Donor {
+
+    private final LazyDonorBatch batch;
+    private volatile DonorDetails details;
+
+    LazyDonor(String firstName, String lastName, Boolean isPrimary, LazyDonorBatch batch) {
+        super(firstName, lastName, isPrimary);
+        this.batch = batch;
+    }
+
+    @Override
+    public BigDecimal getGivingAccountValue() {
+        return details().getGivingAccountValue();
+    }
+
+    @Override
+    public Successor getSuccessor() {
+        return details().getSuccessor();
+    }
+
+    /**
+     * @return true if the details have already been fetched
+     */
+    public boolean isLoaded() {
+        return null != details;
+    }
+
+    DonorDetails details() {
+        // Fast path, a single volatile read once the details are loaded
+        DonorDetails loaded = details;
+        if (null != loaded) {
+            return loaded;
+        }
+
+        batch.load(this);
+        return details;
+    }
+
+    // Only called by the batch, once per donor
+    void setDetails(DonorDetails details) {
+        this.details = details;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyDonor{" +
+                "firstName='" + getFirstName() + '\'' +
+                ", lastName='" + getLastName() + '\'' +
+                ", isPrimary=" + getPrimary() +
+                ", details=" + (isLoaded() ? details : "<not loaded>") +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package optionals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Groups {@link LazyDonor}s that are likely to be read together, e.g. one page of a donor listing.
+ *
+ * When a donor's details are first needed, the batch asks the {@link DonorDetailsLoader}
+ * for that donor plus up to {@code maxBatchSize - 1} other donors that haven't been loaded yet.
+ * Listing donors without reading their details never calls the loader at all.
+ *
+ * The loader is called without holding any lock, so a slow round trip only blocks the
+ * threads that need a donor from that same round trip.
+ */
+public class LazyDonorBatch {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    private final DonorDetailsLoader loader;
+    private final int maxBatchSize;
+
+    // Guarded by this. Donors are taken off the front as they're batched, so each one is looked at once
+    private final Deque<LazyDonor> pending = new ArrayDeque<>();
+    private final Map<LazyDonor, CompletableFuture<Void>> loading = new IdentityHashMap<>();
+
+    public LazyDonorBatch(DonorDetailsLoader loader) {
+        this(loader, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public LazyDonorBatch(DonorDetailsLoader loader, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The max batch size must be at least 1");
+        }
+
+        this.loader = loader;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Creates a donor whose details will be fetched through this batch.
+     */
+    public synchronized LazyDonor donor(String firstName, String lastName, Boolean isPrimary) {
+        LazyDonor donor = new LazyDonor(firstName, lastName, isPrimary, this);
+        pending.addLast(donor);
+        return donor;
+    }
+
+    void load(LazyDonor requested) {
+        List<LazyDonor> toLoad;
+        CompletableFuture<Void> inFlight;
+
+        synchronized (this) {
+            // Another thread might have loaded it while we were waiting for the lock
+            if (requested.isLoaded()) {
+                return;
+            }
+
+            inFlight = loading.get(requested);
+            if (null == inFlight) {
+                toLoad = nextBatch(requested);
+                inFlight = new CompletableFuture<>();
+                for (LazyDonor donor : toLoad) {
+                    loading.put(donor, inFlight);
+                }
+            } else {
+                toLoad = null;
+            }
+        }
+
+        if (null == toLoad) {
+            awaitLoad(inFlight);
+        } else {
+            loadNow(toLoad, inFlight);
+        }
+    }
+
+    private void loadNow(List<LazyDonor> toLoad, CompletableFuture<Void> inFlight) {
+        try {
+            Map<LazyDonor, DonorDetails> loaded = loader.loadAll(toLoad);
+            for (LazyDonor donor : toLoad) {
+                DonorDetails details = loaded.get(donor);
+                donor.setDetails(null == details ? DonorDetails.EMPTY : details);
+            }
+            inFlight.complete(null);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                // Give them another chance with the next read
+                for (int i = toLoad.size() - 1; i >= 0; i--) {
+                    pending.addFirst(toLoad.get(i));
+                }
+            }
+            inFlight.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                for (LazyDonor donor : toLoad) {
+                    loading.remove(donor);
+                }
+            }
+        }
+    }
+
+    private static void awaitLoad(CompletableFuture<Void> inFlight) {
+        try {
+            inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // The requested donor always goes first, then fill up with whoever is still waiting
+    private List<LazyDonor> nextBatch(LazyDonor requested) {
+        List<LazyDonor> toLoad = new ArrayList<>(Math.min(maxBatchSize, pending.size() + 1));
+        toLoad.add(requested);
+
+        // Donors that were loaded or are being loaded are dropped on the way,
+        // the requested one is dropped when it comes up after it's loaded
+        while (toLoad.size() < maxBatchSize && !pending.isEmpty()) {
+            LazyDonor donor = pending.pollFirst();
+            if (donor != requested && !donor.isLoaded() && !loading.containsKey(donor)) {
+                toLoad.add(donor);
+            }
+        }
+
+        return toLoad;
+    }
+}
@@ -4,10 +4,8 @@ public class Employee {
 
     final private Long id;
     final private String name;
-    final private Boolean isAlive;
-    final private Boolean isEmployed;
-    final private Boolean isTerminated;
-    final private Boolean isRetired;
+    // The four status flags packed into one byte, see EmployeeStatus
+    final private byte status;
 
     /*
     Check out the presentation under src/main/java/effectivejava/staticfactories to learn
@@ -33,14 +31,20 @@ public class Employee {
         return new Employee(id, name, true, false, false, false);
     }
 
+    // For storage that already keeps the status packed, like the EmployeeRoster
+    static Employee fromStatus(long id, String name, int status) {
+        return new Employee(id, name,
+                EmployeeStatus.isSet(status, EmployeeStatus.ALIVE),
+                EmployeeStatus.isSet(status, EmployeeStatus.EMPLOYED),
+                EmployeeStatus.isSet(status, EmployeeStatus.TERMINATED),
+                EmployeeStatus.isSet(status, EmployeeStatus.RETIRED));
+    }
+
     private Employee(Long id, String name, Boolean isAlive,
                      Boolean isEmployed, Boolean isTerminated, Boolean isRetired) {
         this.id = id;
         this.name = name;
-        this.isAlive = isAlive;
-        this.isEmployed = isEmployed;
-        this.isTerminated = isTerminated;
-        this.isRetired = isRetired;
+        this.status = (byte) EmployeeStatus.of(isAlive, isEmployed, isTerminated, isRetired);
     }
 
     public Long getId() {
@@ -52,19 +56,26 @@ public class Employee {
     }
 
     public Boolean isAlive() {
-        return isAlive;
+        return EmployeeStatus.isSet(status, EmployeeStatus.ALIVE);
     }
 
     public Boolean isEmployed() {
-        return isEmployed;
+        return EmployeeStatus.isSet(status, EmployeeStatus.EMPLOYED);
     }
 
     public Boolean isTerminated() {
-        return isTerminated;
+        return EmployeeStatus.isSet(status, EmployeeStatus.TERMINATED);
     }
 
     public Boolean isRetired() {
-        return isRetired;
+        return EmployeeStatus.isSet(status, EmployeeStatus.RETIRED);
+    }
+
+    /**
+     * @return the status flags packed by {@link EmployeeStatus}
+     */
+    public int getStatus() {
+        return status;
     }
 
     @Override
@@ -72,10 +83,10 @@ public class Employee {
         return "Employee{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
-                ", isAlive=" + isAlive +
-                ", isEmployed=" + isEmployed +
-                ", isTerminated=" + isTerminated +
-                ", isRetired=" + isRetired +
+                ", isAlive=" + isAlive() +
+                ", isEmployed=" + isEmployed() +
+                ", isTerminated=" + isTerminated() +
+                ", isRetired=" + isRetired() +
                 '}';
     }
 }
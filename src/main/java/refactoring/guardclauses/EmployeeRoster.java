@@ -0,0 +1,169 @@
+package refactoring.guardclauses;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Column oriented storage for a large list of employees.
+ *
+ * Ids are kept in a long[], names back to back in a single char[] arena, and each status flag
+ * in its own bitmap with one bit per employee. Questions like "how many employees are retired"
+ * become a popcount over the bitmap words instead of a walk over millions of Employee objects,
+ * and combinations of flags are bitwise ANDs of whole words.
+ *
+ * Employees are append only and this class is not thread safe.
+ */
+public class EmployeeRoster {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int[] FLAGS = {
+            EmployeeStatus.ALIVE, EmployeeStatus.EMPLOYED, EmployeeStatus.TERMINATED, EmployeeStatus.RETIRED
+    };
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    // nameStarts[i] is where the name of employee i starts in the arena, it ends where the next one starts
+    private int[] nameStarts = new int[INITIAL_CAPACITY + 1];
+    private char[] nameArena = new char[INITIAL_CAPACITY * 8];
+    private final BitSet[] bitmaps = new BitSet[FLAGS.length];
+    private int size;
+
+    public EmployeeRoster() {
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Adds an employee to the end of the roster.
+     *
+     * @param employee the employee to add
+     * @return their row in the roster
+     */
+    public int add(Employee employee) {
+        return add(employee.getId(), employee.getName(), employee.getStatus());
+    }
+
+    int add(long id, String name, int status) {
+        ensureCapacity(size + 1, name.length());
+
+        int row = size++;
+        ids[row] = id;
+        name.getChars(0, name.length(), nameArena, nameStarts[row]);
+        nameStarts[row + 1] = nameStarts[row] + name.length();
+
+        for (int flag : FLAGS) {
+            if (EmployeeStatus.isSet(status, flag)) {
+                bitmap(flag).set(row);
+            }
+        }
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getId(int row) {
+        return ids[checkRow(row)];
+    }
+
+    public String getName(int row) {
+        checkRow(row);
+        return new String(nameArena, nameStarts[row], nameStarts[row + 1] - nameStarts[row]);
+    }
+
+    /**
+     * @return the status flags of the employee, packed by {@link EmployeeStatus}
+     */
+    public int getStatus(int row) {
+        checkRow(row);
+
+        int status = 0;
+        for (int flag : FLAGS) {
+            if (bitmap(flag).get(row)) {
+                status |= flag;
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Builds a regular {@link Employee} for one row.
+     */
+    public Employee getEmployee(int row) {
+        return Employee.fromStatus(getId(row), getName(row), getStatus(row));
+    }
+
+    /**
+     * Counts the employees that have all of the required flags and none of the excluded ones,
+     * e.g. resigned employees are {@code count(ALIVE, EMPLOYED | TERMINATED | RETIRED)}.
+     *
+     * @param required the {@link EmployeeStatus} flags that must be set
+     * @param excluded the {@link EmployeeStatus} flags that must not be set
+     * @return the number of matching employees
+     */
+    public int count(int required, int excluded) {
+        return select(required, excluded).cardinality();
+    }
+
+    /**
+     * @return a bitmap with a bit set for each row that matches, see {@link #count(int, int)}
+     */
+    public BitSet select(int required, int excluded) {
+        if ((required & excluded) != 0) {
+            return new BitSet();
+        }
+
+        BitSet selected = new BitSet(size);
+        selected.set(0, size);
+        for (int flag : FLAGS) {
+            if (EmployeeStatus.isSet(required, flag)) {
+                selected.and(bitmap(flag));
+            } else if (EmployeeStatus.isSet(excluded, flag)) {
+                selected.andNot(bitmap(flag));
+            }
+        }
+        return selected;
+    }
+
+    public int countRetired() {
+        return count(EmployeeStatus.ALIVE | EmployeeStatus.RETIRED, 0);
+    }
+
+    public int countTerminated() {
+        return count(EmployeeStatus.ALIVE | EmployeeStatus.TERMINATED, 0);
+    }
+
+    public int countDeceased() {
+        return count(0, EmployeeStatus.ALIVE);
+    }
+
+    public int countResigned() {
+        return count(EmployeeStatus.ALIVE,
+                EmployeeStatus.EMPLOYED | EmployeeStatus.TERMINATED | EmployeeStatus.RETIRED);
+    }
+
+    private BitSet bitmap(int flag) {
+        return bitmaps[Integer.numberOfTrailingZeros(flag)];
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for size " + size);
+        }
+        return row;
+    }
+
+    private void ensureCapacity(int rows, int nameLength) {
+        if (rows > ids.length) {
+            int newCapacity = Math.max(rows, ids.length * 2);
+            ids = Arrays.copyOf(ids, newCapacity);
+            nameStarts = Arrays.copyOf(nameStarts, newCapacity + 1);
+        }
+
+        int arenaNeeded = nameStarts[size] + nameLength;
+        if (arenaNeeded > nameArena.length) {
+            nameArena = Arrays.copyOf(nameArena, Math.max(arenaNeeded, nameArena.length * 2));
+        }
+    }
+}
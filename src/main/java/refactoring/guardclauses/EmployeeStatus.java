@@ -0,0 +1,65 @@
+package refactoring.guardclauses;
+
+/**
+ * Packs the four employment flags of an {@link Employee} into the low bits of an int.
+ *
+ * With only 16 possible statuses, the payout category of every status can be worked out
+ * up front, and classifying an employee becomes one array read instead of a chain of branches.
+ */
+public final class EmployeeStatus {
+
+    public static final int ALIVE = 1;
+    public static final int EMPLOYED = 1 << 1;
+    public static final int TERMINATED = 1 << 2;
+    public static final int RETIRED = 1 << 3;
+
+    static final int COMBINATIONS = 1 << 4;
+
+    private static final PayoutCategory[] CATEGORY_BY_STATUS = new PayoutCategory[COMBINATIONS];
+
+    static {
+        // Run the guard clauses once for every combination of flags
+        for (int status = 0; status < COMBINATIONS; status++) {
+            CATEGORY_BY_STATUS[status] = classifyWithGuardClauses(status);
+        }
+    }
+
+    private EmployeeStatus() {
+    }
+
+    public static int of(boolean isAlive, boolean isEmployed, boolean isTerminated, boolean isRetired) {
+        return (isAlive ? ALIVE : 0)
+                | (isEmployed ? EMPLOYED : 0)
+                | (isTerminated ? TERMINATED : 0)
+                | (isRetired ? RETIRED : 0);
+    }
+
+    public static boolean isSet(int status, int flag) {
+        return (status & flag) != 0;
+    }
+
+    /**
+     * @param status the packed status of an employee
+     * @return their payout category, without any branching
+     */
+    public static PayoutCategory payoutCategory(int status) {
+        return CATEGORY_BY_STATUS[status & (COMBINATIONS - 1)];
+    }
+
+    // Same guard clauses as PaymentServiceRefactor.payEmployee()
+    private static PayoutCategory classifyWithGuardClauses(int status) {
+        if (!isSet(status, ALIVE)) {
+            return PayoutCategory.ZERO;
+        }
+
+        if (isSet(status, RETIRED)) {
+            return PayoutCategory.BUY_OUT;
+        }
+
+        if (isSet(status, TERMINATED)) {
+            return PayoutCategory.SEVERANCE;
+        }
+
+        return PayoutCategory.STANDARD;
+    }
+}
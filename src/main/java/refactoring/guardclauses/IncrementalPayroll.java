@@ -0,0 +1,142 @@
+package refactoring.guardclauses;
+
+import java.math.BigDecimal;
+
+/**
+ * Keeps the payroll of the last run, so the next run only has to look at the employees that changed.
+ *
+ * Most employees have the same status from one month to the next. Instead of running the
+ * whole roster through {@link PayrollRun} again, the classification of every employee is
+ * kept by id, and each run applies a change feed of the employees whose status changed.
+ * Only their categories and the counts they affect are updated, so a run costs as much
+ * as the churn, not the headcount. Payouts and totals use the amounts of a {@link PayoutPolicy},
+ * without department overrides.
+ *
+ * Not thread safe, changes are expected to be applied by a single payroll job.
+ */
+public class IncrementalPayroll {
+
+    private static final PayoutCategory[] CATEGORIES = PayoutCategory.values();
+
+    private static final long NOT_APPLIED = -1;
+
+    private final PayoutPolicy policy;
+    // Employee id to the ordinal of their category
+    private final LongLongMap categories = new LongLongMap();
+    private final long[] counts = new long[CATEGORIES.length];
+
+    public IncrementalPayroll() {
+        this(PayoutPolicy.standard());
+    }
+
+    /**
+     * @param policy how much each category is paid
+     */
+    public IncrementalPayroll(PayoutPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Applies the status of one employee, either a new hire or a change since the last run.
+     *
+     * @param employee the employee as of this run
+     * @return true if their payout category changed, false if it stayed the same
+     */
+    public boolean apply(Employee employee) {
+        if (employee == null) {
+            throw new RuntimeException("There was no employee supplied");
+        }
+
+        int category = EmployeeStatus.payoutCategory(employee.getStatus()).ordinal();
+        long previous = categories.put(employee.getId(), category, NOT_APPLIED);
+        if (previous == category) {
+            return false;
+        }
+
+        if (previous != NOT_APPLIED) {
+            counts[(int) previous]--;
+        }
+        counts[category]++;
+        return true;
+    }
+
+    /**
+     * Takes an employee who left off the payroll, e.g. after their final payout.
+     *
+     * @param employeeId the id of the employee leaving
+     * @return true if they were on the payroll
+     */
+    public boolean remove(long employeeId) {
+        long category = categories.remove(employeeId, NOT_APPLIED);
+        if (category == NOT_APPLIED) {
+            return false;
+        }
+
+        counts[(int) category]--;
+        return true;
+    }
+
+    /**
+     * Applies a change feed. The first run is a change feed of the whole roster.
+     *
+     * @param changes the employees whose status may have changed since the last run
+     * @return how many of them had their payout category changed
+     */
+    public int applyAll(Iterable<Employee> changes) {
+        int changed = 0;
+        for (Employee employee : changes) {
+            if (apply(employee)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the category of the employee's payout, or null if they were never applied
+     */
+    public PayoutCategory getCategory(long employeeId) {
+        long category = categories.get(employeeId, NOT_APPLIED);
+        return category == NOT_APPLIED ? null : CATEGORIES[(int) category];
+    }
+
+    /**
+     * @return the employee's payout, or null if they were never applied
+     */
+    public BigDecimal getPayout(long employeeId) {
+        PayoutCategory category = getCategory(employeeId);
+        return null == category ? null : policy.getAmount(category);
+    }
+
+    /**
+     * @return the number of employees on the payroll
+     */
+    public int size() {
+        return categories.size();
+    }
+
+    public long getCount(PayoutCategory category) {
+        return counts[category.ordinal()];
+    }
+
+    public BigDecimal getTotal(PayoutCategory category) {
+        return policy.getAmount(category).multiply(BigDecimal.valueOf(getCount(category)));
+    }
+
+    public BigDecimal getGrandTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (PayoutCategory category : CATEGORIES) {
+            total = total.add(getTotal(category));
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("IncrementalPayroll{size=").append(size());
+        for (PayoutCategory category : CATEGORIES) {
+            builder.append(", ").append(category).append('=').append(getCount(category));
+        }
+        return builder.append(", grandTotal=").append(getGrandTotal()).append('}').toString();
+    }
+}
@@ -0,0 +1,153 @@
+package refactoring.guardclauses;
+
+/*
+An open addressing (linear probing) map from primitive long keys to long values,
+so employee ids and amounts are never boxed. Removing an entry shifts the rest of
+its probe sequence back, so no tombstones are left behind.
+
+Not thread safe, callers must synchronize.
+ */
+class LongLongMap {
+
+    private long[] keys = new long[16];
+    private long[] values = new long[16];
+    private boolean[] used = new boolean[16];
+    private int size;
+
+    static long mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    boolean containsKey(long key) {
+        return used[slotOf(key)];
+    }
+
+    /**
+     * @return the value of the key, or missing if it isn't in the map
+     */
+    long get(long key, long missing) {
+        int slot = slotOf(key);
+        return used[slot] ? values[slot] : missing;
+    }
+
+    /**
+     * @return false if the key was already in the map, which is left unchanged
+     */
+    boolean putIfAbsent(long key, long value) {
+        if (containsKey(key)) {
+            return false;
+        }
+        put(key, value, 0);
+        return true;
+    }
+
+    /**
+     * @return the previous value of the key, or missing if it wasn't in the map
+     */
+    long put(long key, long value, long missing) {
+        int slot = slotOf(key);
+        if (used[slot]) {
+            long previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+
+        // Keep the table at most half full so probe sequences stay short
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            slot = slotOf(key);
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        size++;
+        return missing;
+    }
+
+    /**
+     * @return the value the key had, or missing if it wasn't in the map
+     */
+    long remove(long key, long missing) {
+        int slot = slotOf(key);
+        if (!used[slot]) {
+            return missing;
+        }
+        long removed = values[slot];
+
+        // Backward shift deletion: pull later entries of the probe sequence into the hole
+        // so lookups never stop early at it
+        int mask = keys.length - 1;
+        int hole = slot;
+        used[hole] = false;
+        for (int current = (hole + 1) & mask; used[current]; current = (current + 1) & mask) {
+            int home = (int) mix(keys[current]) & mask;
+            boolean homeInRange = hole <= current
+                    ? hole < home && home <= current
+                    : hole < home || home <= current;
+            if (homeInRange) {
+                continue; // It's already as close to home as it can be
+            }
+            keys[hole] = keys[current];
+            values[hole] = values[current];
+            used[hole] = true;
+            used[current] = false;
+            hole = current;
+        }
+
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /*
+    Iterating over the slots, for writing the map out:
+    every slot below capacity() whose isUsed() is true holds an entry.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    boolean isUsed(int slot) {
+        return used[slot];
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    long valueAt(int slot) {
+        return values[slot];
+    }
+
+    // The slot holding the key, or the empty slot where it would go
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package refactoring.guardclauses;
+
+import java.math.BigDecimal;
+
+/**
+ * What kind of payment an employee gets, and how much it is.
+ * The amounts are the same ones paid by {@link PaymentService} and {@link PaymentServiceRefactor}.
+ */
+public enum PayoutCategory {
+
+    ZERO(BigDecimal.ZERO),
+    STANDARD(BigDecimal.valueOf(1000)),
+    SEVERANCE(BigDecimal.valueOf(1500)),
+    BUY_OUT(BigDecimal.valueOf(10000));
+
+    private final BigDecimal amount;
+
+    PayoutCategory(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    /**
+     * @return the amount paid, the same instance every time
+     */
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gives the same answer as the guard clauses in {@link PaymentServiceRefactor#payEmployee(Employee)},
+     * with a single table read on the employee's packed status.
+     *
+     * @param employee the employee to classify
+     * @return the category of payment they get
+     */
+    public static PayoutCategory of(Employee employee) {
+        if (employee == null) {
+            throw new RuntimeException("There was no employee supplied");
+        }
+
+        return EmployeeStatus.payoutCategory(employee.getStatus());
+    }
+}
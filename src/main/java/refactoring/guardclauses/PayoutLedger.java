@@ -0,0 +1,172 @@
+package refactoring.guardclauses;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Remembers which employees were already paid, so a payroll run that is retried
+ * after a crash skips everyone who was paid before its last checkpoint.
+ *
+ * Payouts are keyed on {@link Employee#getId()} and stored as long cents in lock striped,
+ * open addressing hash maps, so writers from a parallel payroll run rarely wait on each other
+ * and ids are never boxed. {@link #checkpoint(Path)} saves the ledger to disk, and
+ * {@link #restore(Path)} loads it back, so a restarted run only pays who's left.
+ *
+ * Within one ledger every employee is recorded at most once. Across a crash that only holds
+ * up to the last checkpoint: payouts recorded after it are lost with the process, so the
+ * retried run pays those employees again. Checkpoint as often as a repeated payout costs.
+ */
+public class PayoutLedger {
+
+    private static final int STRIPES = 64; // Must be a power of 2
+    private static final int CHECKPOINT_MAGIC = 0x50415944; // "PAYD"
+
+    // Each stripe is guarded by its own monitor
+    private final LongLongMap[] stripes = new LongLongMap[STRIPES];
+
+    public PayoutLedger() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongLongMap();
+        }
+    }
+
+    /**
+     * Records a payout, unless the employee already has one.
+     *
+     * @param employeeId the id of the employee being paid
+     * @param payout     the amount paid, at most 2 decimal places
+     * @return true if the payout was recorded, false if the employee was already paid
+     */
+    public boolean recordOnce(long employeeId, BigDecimal payout) {
+        long cents = payout.movePointRight(2).longValueExact();
+        LongLongMap stripe = stripeFor(employeeId);
+        synchronized (stripe) {
+            return stripe.putIfAbsent(employeeId, cents);
+        }
+    }
+
+    /**
+     * Pays the employee with the payment service, unless they were already paid.
+     * The payout is recorded with {@link #recordOnce(long, BigDecimal)}, so when several
+     * threads pay the same employee at once, exactly one of them records it.
+     *
+     * @return true if the employee was paid by this call
+     */
+    public boolean payOnce(Employee employee, PaymentServiceRefactor paymentService) {
+        return recordOnce(employee.getId(), paymentService.payEmployee(employee));
+    }
+
+    public boolean isPaid(long employeeId) {
+        LongLongMap stripe = stripeFor(employeeId);
+        synchronized (stripe) {
+            return stripe.containsKey(employeeId);
+        }
+    }
+
+    /**
+     * @return the amount the employee was paid, or null if they weren't paid yet
+     */
+    public BigDecimal getPayout(long employeeId) {
+        LongLongMap stripe = stripeFor(employeeId);
+        synchronized (stripe) {
+            return stripe.containsKey(employeeId) ? BigDecimal.valueOf(stripe.get(employeeId, 0), 2) : null;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (LongLongMap stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Saves every recorded payout. The file is written next to the target and then moved
+     * over it, so a crash during the checkpoint leaves the previous one intact. Once this
+     * returns, the new checkpoint survives a crash too, the move itself is synced to disk.
+     * Payouts recorded while the checkpoint runs may or may not be included.
+     *
+     * @param file where to save the ledger
+     */
+    public void checkpoint(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Not closed on its own, closing it would close the channel before the force
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(CHECKPOINT_MAGIC);
+            for (LongLongMap stripe : stripes) {
+                synchronized (stripe) {
+                    out.writeInt(stripe.size());
+                    for (int slot = 0; slot < stripe.capacity(); slot++) {
+                        if (stripe.isUsed(slot)) {
+                            out.writeLong(stripe.keyAt(slot));
+                            out.writeLong(stripe.valueAt(slot));
+                        }
+                    }
+                }
+            }
+            out.flush();
+
+            // The checkpoint must be on disk before it replaces the previous one
+            channel.force(true);
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * @param file a file written by {@link #checkpoint(Path)}
+     * @return the ledger as of that checkpoint, or an empty ledger if there's no checkpoint yet
+     */
+    public static PayoutLedger restore(Path file) throws IOException {
+        PayoutLedger ledger = new PayoutLedger();
+        if (!Files.exists(file)) {
+            return ledger;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("Not a payout ledger checkpoint: " + file);
+            }
+
+            for (int s = 0; s < STRIPES; s++) {
+                int entries = in.readInt();
+                for (int i = 0; i < entries; i++) {
+                    long id = in.readLong();
+                    ledger.stripeFor(id).putIfAbsent(id, in.readLong());
+                }
+            }
+        }
+        return ledger;
+    }
+
+    // The move is only durable once the directory entry is, until then a crash can bring back the old file
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows can't open a directory as a file, there the move is as durable as the file system makes it
+        }
+    }
+
+    private LongLongMap stripeFor(long employeeId) {
+        return stripes[(int) (LongLongMap.mix(employeeId) >>> 58) & (STRIPES - 1)];
+    }
+}
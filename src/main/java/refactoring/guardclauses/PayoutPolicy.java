@@ -0,0 +1,170 @@
+package refactoring.guardclauses;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * How much each {@link PayoutCategory} is paid, loaded from configuration instead of
+ * being hard coded in the payment service.
+ *
+ * The policy is compiled up front into an array of the payout of every {@link EmployeeStatus},
+ * one array per department with overrides, so paying an employee is a map lookup for the
+ * department and an array read, no matter how many rules there are. Policies never change
+ * once built, a new configuration is a new policy, see {@link PolicyPaymentService#setPolicy(PayoutPolicy)}.
+ *
+ * The configuration is a properties file, with the amount of each category and
+ * optional overrides prefixed by the department:
+ * <pre>
+ * STANDARD=1000
+ * SEVERANCE=1500
+ * BUY_OUT=10000
+ * sales.SEVERANCE=2500
+ * </pre>
+ * Categories that aren't configured keep the amounts of {@link PayoutCategory}.
+ * {@link PayoutCategory#ZERO} is what deceased employees get, so it can only be configured as 0.
+ */
+public final class PayoutPolicy {
+
+    private static final PayoutPolicy STANDARD = new PayoutPolicy(new EnumMap<>(PayoutCategory.class), Collections.emptyMap());
+
+    private final BigDecimal[] payouts;
+    private final Map<String, BigDecimal[]> departmentPayouts;
+
+    private PayoutPolicy(Map<PayoutCategory, BigDecimal> amounts,
+                         Map<String, Map<PayoutCategory, BigDecimal>> departmentAmounts) {
+        this.payouts = compile(amounts, Collections.emptyMap());
+
+        Map<String, BigDecimal[]> compiled = new HashMap<>();
+        departmentAmounts.forEach((department, overrides) -> compiled.put(department, compile(amounts, overrides)));
+        this.departmentPayouts = compiled;
+    }
+
+    /**
+     * @return the policy of the hard coded payment services: 1000 standard, 1500 severance and 10000 buy out
+     */
+    public static PayoutPolicy standard() {
+        return STANDARD;
+    }
+
+    /**
+     * @param file a properties file, see the class documentation for the keys
+     */
+    public static PayoutPolicy load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * @param properties the amount of each category, see the class documentation for the keys
+     */
+    public static PayoutPolicy fromProperties(Properties properties) {
+        Map<PayoutCategory, BigDecimal> amounts = new EnumMap<>(PayoutCategory.class);
+        Map<String, Map<PayoutCategory, BigDecimal>> departmentAmounts = new HashMap<>();
+
+        for (String key : properties.stringPropertyNames()) {
+            // Department names may contain dots, the category is always after the last one
+            int dot = key.lastIndexOf('.');
+            PayoutCategory category = parseCategory(key, key.substring(dot + 1));
+            BigDecimal amount = parseAmount(key, properties.getProperty(key));
+            if (category == PayoutCategory.ZERO && amount.signum() != 0) {
+                throw new IllegalArgumentException("The payout of " + key + " must be 0, was " + properties.getProperty(key));
+            }
+
+            if (dot < 0) {
+                amounts.put(category, amount);
+            } else {
+                departmentAmounts.computeIfAbsent(key.substring(0, dot), department -> new EnumMap<>(PayoutCategory.class))
+                        .put(category, amount);
+            }
+        }
+
+        return new PayoutPolicy(amounts, departmentAmounts);
+    }
+
+    /**
+     * @param status the packed status of an employee
+     * @return their payout under this policy
+     */
+    public BigDecimal payout(int status) {
+        return payouts[status & (EmployeeStatus.COMBINATIONS - 1)];
+    }
+
+    /**
+     * @param department the employee's department, departments without overrides use the default amounts
+     * @param status     the packed status of an employee
+     * @return their payout under this policy
+     */
+    public BigDecimal payout(String department, int status) {
+        return departmentPayouts.getOrDefault(department, payouts)[status & (EmployeeStatus.COMBINATIONS - 1)];
+    }
+
+    /**
+     * @return the payout of a category for departments without overrides
+     */
+    public BigDecimal getAmount(PayoutCategory category) {
+        return payouts[statusOf(category)];
+    }
+
+    // Runs every status through the guard clauses once, so payouts never have to
+    private static BigDecimal[] compile(Map<PayoutCategory, BigDecimal> amounts,
+                                        Map<PayoutCategory, BigDecimal> overrides) {
+        BigDecimal[] compiled = new BigDecimal[EmployeeStatus.COMBINATIONS];
+        for (int status = 0; status < EmployeeStatus.COMBINATIONS; status++) {
+            PayoutCategory category = EmployeeStatus.payoutCategory(status);
+            compiled[status] = overrides.getOrDefault(category, amounts.getOrDefault(category, category.getAmount()));
+        }
+        return compiled;
+    }
+
+    private static int statusOf(PayoutCategory category) {
+        for (int status = 0; status < EmployeeStatus.COMBINATIONS; status++) {
+            if (EmployeeStatus.payoutCategory(status) == category) {
+                return status;
+            }
+        }
+        throw new IllegalStateException("No status is paid as " + category);
+    }
+
+    private static PayoutCategory parseCategory(String key, String name) {
+        try {
+            return PayoutCategory.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown payout category in " + key, e);
+        }
+    }
+
+    private static BigDecimal parseAmount(String key, String value) {
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The payout of " + key + " is not a number: " + value, e);
+        }
+
+        if (amount.signum() < 0) {
+            throw new IllegalArgumentException("The payout of " + key + " can't be negative: " + value);
+        }
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PayoutPolicy{");
+        for (PayoutCategory category : PayoutCategory.values()) {
+            builder.append(category).append('=').append(getAmount(category)).append(", ");
+        }
+        return builder.append("departments=").append(departmentPayouts.keySet()).append('}').toString();
+    }
+}
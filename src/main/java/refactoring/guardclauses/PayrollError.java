@@ -0,0 +1,22 @@
+package refactoring.guardclauses;
+
+/**
+ * Why an employee couldn't be paid in a bulk payroll run, see {@link PayrollRun#runSkippingInvalid(java.util.List)}.
+ *
+ * A dirty input file can have thousands of bad rows. Throwing an exception for each of them
+ * spends most of the run filling in stack traces, so bulk runs report them as these codes instead.
+ */
+public enum PayrollError {
+
+    MISSING_EMPLOYEE("There was no employee supplied");
+
+    private final String message;
+
+    PayrollError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
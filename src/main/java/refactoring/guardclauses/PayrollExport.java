@@ -0,0 +1,238 @@
+package refactoring.guardclauses;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+/**
+ * Pays every employee of an HR export file and writes the payouts to another file, in one pass.
+ *
+ * The export can be several GB, so it's never loaded into a list of employees. Instead it's
+ * read through a fixed size buffer, every complete line is paid as soon as it's parsed, and
+ * the payouts are collected in a second fixed size buffer that's written out whenever it fills up.
+ * The memory used is the same for a file of 10 employees or 10 million.
+ *
+ * Each line of the export is {@code id,name,alive,employed,terminated,retired}, where the flags
+ * are exactly {@code true} or {@code false}, and the id is a non-negative number that fits in a
+ * long. Names may contain commas. Each line of the payout file is {@code id,payout}.
+ */
+public class PayrollExport {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    // The flag columns of a line, read from the end of the line
+    private static final int[] FLAGS_FROM_LAST = {
+            EmployeeStatus.RETIRED, EmployeeStatus.TERMINATED, EmployeeStatus.EMPLOYED, EmployeeStatus.ALIVE
+    };
+
+    private final Function<Employee, BigDecimal> paymentService;
+    private final int bufferSize;
+
+    public PayrollExport() {
+        this(new PaymentServiceRefactor()::payEmployee, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param paymentService decides the payout of each employee
+     * @param bufferSize     the size of the read and the write buffer, must fit the longest line
+     */
+    public PayrollExport(Function<Employee, BigDecimal> paymentService, int bufferSize) {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("The buffer size must be at least 64 bytes, was " + bufferSize);
+        }
+        this.paymentService = paymentService;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param employees the HR export to read
+     * @param payouts   the file to write the payouts to, replaced if it exists
+     * @return the number of employees paid
+     */
+    public long export(Path employees, Path payouts) throws IOException {
+        try (FileChannel in = FileChannel.open(employees, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(payouts, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return new Pass(in, out).run();
+        }
+    }
+
+    /*
+    The state of a single export, so the buffers aren't shared between
+    exports running at the same time.
+     */
+    private class Pass {
+
+        private final FileChannel in;
+        private final FileChannel out;
+        private final ByteBuffer input = ByteBuffer.allocateDirect(bufferSize);
+        private final ByteBuffer output = ByteBuffer.allocateDirect(bufferSize);
+        private final byte[] name = new byte[bufferSize];
+        private long lineNumber;
+        private long paid;
+
+        private Pass(FileChannel in, FileChannel out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        private long run() throws IOException {
+            while (in.read(input) >= 0) {
+                input.flip();
+                payCompleteLines();
+
+                if (input.position() == 0 && input.limit() == input.capacity()) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than the buffer of " + bufferSize + " bytes");
+                }
+                input.compact();
+            }
+
+            // The last line may not end with a new line
+            input.flip();
+            if (input.hasRemaining()) {
+                payLine(input.position(), input.limit());
+            }
+
+            flush();
+            return paid;
+        }
+
+        private void payCompleteLines() throws IOException {
+            int start = input.position();
+            for (int i = start; i < input.limit(); i++) {
+                if (input.get(i) == '\n') {
+                    payLine(start, i);
+                    start = i + 1;
+                }
+            }
+            input.position(start);
+        }
+
+        private void payLine(int start, int end) throws IOException {
+            lineNumber++;
+            if (end > start && input.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end == start) {
+                return;
+            }
+
+            // The id is everything up to the first comma, and the flags are after the last four
+            int idEnd = indexOf(start, end);
+            if (idEnd < 0) {
+                throw malformed();
+            }
+
+            int status = 0;
+            int flagsStart = end;
+            for (int flag : FLAGS_FROM_LAST) {
+                int flagEnd = flagsStart;
+                flagsStart = lastIndexOf(idEnd + 1, flagEnd);
+                if (flagsStart < 0) {
+                    throw malformed();
+                }
+                if (parseFlag(flagsStart + 1, flagEnd)) {
+                    status |= flag;
+                }
+            }
+
+            int nameLength = flagsStart - idEnd - 1;
+            for (int i = 0; i < nameLength; i++) {
+                name[i] = input.get(idEnd + 1 + i);
+            }
+
+            long id = parseId(start, idEnd);
+            Employee employee = Employee.fromStatus(id, new String(name, 0, nameLength, StandardCharsets.UTF_8), status);
+
+            write(id, paymentService.apply(employee));
+            paid++;
+        }
+
+        private int indexOf(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (input.get(i) == ',') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int lastIndexOf(int from, int to) {
+            for (int i = to - 1; i >= from; i--) {
+                if (input.get(i) == ',') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private long parseId(int start, int end) throws IOException {
+            if (start == end) {
+                throw malformed();
+            }
+
+            long id = 0;
+            for (int i = start; i < end; i++) {
+                int digit = input.get(i) - '0';
+                // Checked before multiplying, so an id that doesn't fit in a long can't wrap around
+                if (digit < 0 || digit > 9 || id > (Long.MAX_VALUE - digit) / 10) {
+                    throw malformed();
+                }
+                id = id * 10 + digit;
+            }
+            return id;
+        }
+
+        private boolean parseFlag(int start, int end) throws IOException {
+            if (matches(start, end, TRUE)) {
+                return true;
+            }
+            if (matches(start, end, FALSE)) {
+                return false;
+            }
+            throw malformed();
+        }
+
+        private boolean matches(int start, int end, byte[] token) {
+            if (end - start != token.length) {
+                return false;
+            }
+            for (int i = 0; i < token.length; i++) {
+                if (input.get(start + i) != token[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void write(long id, BigDecimal payout) throws IOException {
+            String record = id + "," + payout.toPlainString() + "\n";
+            if (output.remaining() < record.length()) {
+                flush();
+            }
+            for (int i = 0; i < record.length(); i++) {
+                output.put((byte) record.charAt(i));
+            }
+        }
+
+        private void flush() throws IOException {
+            output.flip();
+            while (output.hasRemaining()) {
+                out.write(output);
+            }
+            output.clear();
+        }
+
+        private IOException malformed() {
+            return new IOException("Malformed employee record on line " + lineNumber);
+        }
+    }
+}
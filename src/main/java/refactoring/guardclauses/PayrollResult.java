@@ -0,0 +1,123 @@
+package refactoring.guardclauses;
+
+import java.math.BigDecimal;
+
+/**
+ * The outcome of a {@link PayrollRun}: the payout of every employee on the roster,
+ * plus counts and totals per {@link PayoutCategory}, and the employees that couldn't be paid
+ * when the run was {@link PayrollRun#runSkippingInvalid(java.util.List) skipping invalid rows}.
+ * Payouts and totals use the amounts of the run's {@link PayoutPolicy}.
+ */
+public class PayrollResult {
+
+    private static final PayoutCategory[] CATEGORIES = PayoutCategory.values();
+    private static final PayrollError[] ERRORS = PayrollError.values();
+    private static final int[] NO_ROWS = new int[0];
+    private static final byte[] NO_ERRORS = new byte[0];
+
+    private final PayoutPolicy policy;
+    private final byte[] categories;
+    private final long[] counts;
+    // The rows that couldn't be paid, in roster order, and why
+    private final int[] invalidRows;
+    private final byte[] errors;
+
+    PayrollResult(PayoutPolicy policy, byte[] categories, long[] counts) {
+        this(policy, categories, counts, NO_ROWS, NO_ERRORS);
+    }
+
+    PayrollResult(PayoutPolicy policy, byte[] categories, long[] counts, int[] invalidRows, byte[] errors) {
+        this.policy = policy;
+        this.categories = categories;
+        this.counts = counts;
+        this.invalidRows = invalidRows;
+        this.errors = errors;
+    }
+
+    /**
+     * @return the number of employees on the roster
+     */
+    public int size() {
+        return categories.length;
+    }
+
+    /**
+     * @param index the position of the employee on the roster
+     * @return the category of their payout, or null if they couldn't be paid
+     */
+    public PayoutCategory getCategory(int index) {
+        byte category = categories[index];
+        return category < 0 ? null : CATEGORIES[category];
+    }
+
+    /**
+     * @param index the position of the employee on the roster
+     * @return their payout, or null if they couldn't be paid
+     */
+    public BigDecimal getPayout(int index) {
+        PayoutCategory category = getCategory(index);
+        return null == category ? null : policy.getAmount(category);
+    }
+
+    /**
+     * @param index the position of the employee on the roster
+     * @return why they couldn't be paid, or null if they were paid
+     */
+    public PayrollError getError(int index) {
+        byte category = categories[index];
+        return category < 0 ? ERRORS[-category - 1] : null;
+    }
+
+    /**
+     * @return the positions on the roster of the employees that couldn't be paid, in roster order
+     */
+    public int[] getInvalidRows() {
+        return invalidRows.clone();
+    }
+
+    /**
+     * @return the number of employees that couldn't be paid
+     */
+    public int getErrorCount() {
+        return invalidRows.length;
+    }
+
+    /**
+     * @return how many employees couldn't be paid for that reason
+     */
+    public long getErrorCount(PayrollError error) {
+        long count = 0;
+        for (byte code : errors) {
+            if (code == error.ordinal()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getCount(PayoutCategory category) {
+        return counts[category.ordinal()];
+    }
+
+    public BigDecimal getTotal(PayoutCategory category) {
+        return policy.getAmount(category).multiply(BigDecimal.valueOf(getCount(category)));
+    }
+
+    public BigDecimal getGrandTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (PayoutCategory category : CATEGORIES) {
+            total = total.add(getTotal(category));
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PayrollResult{size=").append(size());
+        for (PayoutCategory category : CATEGORIES) {
+            builder.append(", ").append(category).append('=').append(getCount(category));
+        }
+        return builder.append(", errors=").append(getErrorCount())
+                .append(", grandTotal=").append(getGrandTotal()).append('}').toString();
+    }
+}
@@ -0,0 +1,160 @@
+package refactoring.guardclauses;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Pays a whole roster of employees at once.
+ *
+ * {@link PaymentServiceRefactor#payEmployee(Employee)} is the clearest way to pay one employee,
+ * but a run over millions of them allocates a new BigDecimal for each one.
+ * Here the roster is split across the cores of a fork/join pool, each employee is classified
+ * once into a {@link PayoutCategory}, and the payouts are the shared amounts of those categories
+ * under the run's {@link PayoutPolicy}. The roster has no departments, so department overrides
+ * of the policy don't apply.
+ */
+public class PayrollRun {
+
+    // Classifying an employee is a few flag reads and a table lookup, so a slice needs
+    // about this many of them before it pays for forking a task
+    private static final int SEQUENTIAL_THRESHOLD = 10_000;
+
+    // The tasks count the rows that couldn't be paid in the slot after the categories,
+    // which is dropped before the counts reach a PayrollResult
+    private static final int INVALID = PayoutCategory.values().length;
+
+    private final ForkJoinPool pool;
+    private final PayoutPolicy policy;
+
+    public PayrollRun() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public PayrollRun(ForkJoinPool pool) {
+        this(pool, PayoutPolicy.standard());
+    }
+
+    /**
+     * @param pool   runs the classification of big rosters
+     * @param policy how much each category is paid
+     */
+    public PayrollRun(ForkJoinPool pool, PayoutPolicy policy) {
+        this.pool = pool;
+        this.policy = policy;
+    }
+
+    /**
+     * @param roster the employees to pay
+     * @return the payout of every employee, in roster order, and the totals per category
+     */
+    public PayrollResult run(List<Employee> roster) {
+        byte[] categories = new byte[roster.size()];
+        long[] counts = classify(roster, categories, false);
+        return new PayrollResult(policy, categories, Arrays.copyOf(counts, INVALID));
+    }
+
+    /**
+     * Pays the roster like {@link #run(List)}, except that employees who can't be paid don't stop
+     * the run. No exception is thrown for them, their rows are reported by
+     * {@link PayrollResult#getInvalidRows()} with a {@link PayrollError} each.
+     *
+     * @param roster the employees to pay, may contain nulls
+     * @return the payout of every valid employee, in roster order, and the rows that were skipped
+     */
+    public PayrollResult runSkippingInvalid(List<Employee> roster) {
+        byte[] categories = new byte[roster.size()];
+        long[] counts = classify(roster, categories, true);
+
+        // The invalid rows are rare, so they're only gathered if there are any
+        int invalid = (int) counts[INVALID];
+        int[] invalidRows = new int[invalid];
+        byte[] errors = new byte[invalid];
+        for (int i = 0, found = 0; found < invalid; i++) {
+            if (categories[i] < 0) {
+                invalidRows[found] = i;
+                errors[found] = (byte) (-categories[i] - 1);
+                found++;
+            }
+        }
+
+        return new PayrollResult(policy, categories, Arrays.copyOf(counts, INVALID), invalidRows, errors);
+    }
+
+    /**
+     * Pays every employee of a columnar roster. The statuses are read straight
+     * from the roster's bitmaps, no Employee objects are created.
+     *
+     * @param roster the employees to pay
+     * @return the payout of every employee, in roster order, and the totals per category
+     */
+    public PayrollResult run(EmployeeRoster roster) {
+        byte[] categories = new byte[roster.size()];
+        long[] counts = new long[PayoutCategory.values().length];
+
+        for (int row = 0; row < categories.length; row++) {
+            PayoutCategory category = EmployeeStatus.payoutCategory(roster.getStatus(row));
+            categories[row] = (byte) category.ordinal();
+            counts[category.ordinal()]++;
+        }
+
+        return new PayrollResult(policy, categories, counts);
+    }
+
+    private long[] classify(List<Employee> roster, byte[] categories, boolean skipInvalid) {
+        // Every task reads its slice with get(i), which would walk a LinkedList from the head each time
+        List<Employee> employees = roster instanceof RandomAccess ? roster : new ArrayList<>(roster);
+        return pool.invoke(new ClassifyTask(employees, categories, 0, employees.size(), skipInvalid));
+    }
+
+    private static class ClassifyTask extends RecursiveTask<long[]> {
+
+        private final List<Employee> employees;
+        private final byte[] categories;
+        private final int from;
+        private final int to;
+        private final boolean skipInvalid;
+
+        private ClassifyTask(List<Employee> employees, byte[] categories, int from, int to, boolean skipInvalid) {
+            this.employees = employees;
+            this.categories = categories;
+            this.from = from;
+            this.to = to;
+            this.skipInvalid = skipInvalid;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                long[] counts = new long[INVALID + 1];
+                for (int i = from; i < to; i++) {
+                    Employee employee = employees.get(i);
+                    if (employee == null && skipInvalid) {
+                        // Invalid rows are marked with -(error + 1), so they can't be mistaken for a category
+                        categories[i] = (byte) -(PayrollError.MISSING_EMPLOYEE.ordinal() + 1);
+                        counts[INVALID]++;
+                        continue;
+                    }
+
+                    PayoutCategory category = PayoutCategory.of(employee);
+                    categories[i] = (byte) category.ordinal();
+                    counts[category.ordinal()]++;
+                }
+                return counts;
+            }
+
+            int middle = (from + to) >>> 1;
+            ClassifyTask left = new ClassifyTask(employees, categories, from, middle, skipInvalid);
+            left.fork();
+            long[] counts = new ClassifyTask(employees, categories, middle, to, skipInvalid).compute();
+            long[] leftCounts = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+    }
+}
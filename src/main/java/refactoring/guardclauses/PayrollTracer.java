@@ -0,0 +1,238 @@
+package refactoring.guardclauses;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how often each guard clause of {@link PaymentServiceRefactor#payEmployee(Employee)} fires,
+ * and how long the calls take, see {@link TracedPaymentService}.
+ *
+ * Every thread records into its own counters, so tracing a parallel payroll run doesn't make
+ * the threads fight over shared counters. The counters are only added up when a
+ * {@link Snapshot} is taken. The counters of threads that have died are folded into
+ * a shared total, so a pool that keeps replacing its threads doesn't make the list of
+ * counters, or the snapshots, grow forever. Tracing can be switched on and off at any time,
+ * while it's off the only cost is reading a volatile flag.
+ */
+public class PayrollTracer {
+
+    /**
+     * The guard clauses of the payment service, in the order they are checked.
+     * Every clause after the null check decides exactly one {@link PayoutCategory}.
+     */
+    public enum Branch {
+        NULL_EMPLOYEE(null),
+        DECEASED(PayoutCategory.ZERO),
+        RETIRED(PayoutCategory.BUY_OUT),
+        TERMINATED(PayoutCategory.SEVERANCE),
+        STANDARD(PayoutCategory.STANDARD);
+
+        private static final Branch[] BY_CATEGORY = new Branch[PayoutCategory.values().length];
+
+        static {
+            for (Branch branch : values()) {
+                if (null != branch.category) {
+                    BY_CATEGORY[branch.category.ordinal()] = branch;
+                }
+            }
+        }
+
+        private final PayoutCategory category;
+
+        Branch(PayoutCategory category) {
+            this.category = category;
+        }
+
+        /**
+         * @param employee the employee being paid, may be null
+         * @return the guard clause that decides their payment, read from the same
+         * status table as {@link PayoutCategory#of(Employee)}
+         */
+        public static Branch of(Employee employee) {
+            if (null == employee) {
+                return NULL_EMPLOYEE;
+            }
+
+            return BY_CATEGORY[EmployeeStatus.payoutCategory(employee.getStatus()).ordinal()];
+        }
+    }
+
+    // Latencies are bucketed by powers of 2: bucket i holds calls that took [2^i, 2^(i+1)) nanoseconds
+    static final int LATENCY_BUCKETS = 64;
+
+    private static final Branch[] BRANCHES = Branch.values();
+
+    // The counters of live threads, and the sum of the dead ones, guarded by recorders
+    private final List<Recorder> recorders = new ArrayList<>();
+    private final long[] retired = new long[BRANCHES.length * LATENCY_BUCKETS];
+    private final ThreadLocal<Recorder> recorder = ThreadLocal.withInitial(this::newRecorder);
+    private volatile boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enable() {
+        enabled = true;
+    }
+
+    public void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Records one call. Only call this while tracing is enabled.
+     *
+     * @param branch       the guard clause that decided the payment
+     * @param elapsedNanos how long the call took
+     */
+    public void record(Branch branch, long elapsedNanos) {
+        recorder.get().record(branch, elapsedNanos);
+    }
+
+    /**
+     * Adds up the counters of every thread. Calls recorded while the snapshot is
+     * being taken may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] totals;
+        synchronized (recorders) {
+            retireDeadThreads();
+            totals = retired.clone();
+            for (Recorder threadRecorder : recorders) {
+                threadRecorder.addTo(totals);
+            }
+        }
+
+        long[] counts = new long[BRANCHES.length];
+        long[][] latencies = new long[BRANCHES.length][LATENCY_BUCKETS];
+        for (int branch = 0; branch < BRANCHES.length; branch++) {
+            for (int bucket = 0; bucket < LATENCY_BUCKETS; bucket++) {
+                long calls = totals[branch * LATENCY_BUCKETS + bucket];
+                latencies[branch][bucket] = calls;
+                counts[branch] += calls;
+            }
+        }
+
+        return new Snapshot(counts, latencies);
+    }
+
+    /**
+     * @return the number of threads whose counters are kept apart, for tests
+     */
+    int recorderCount() {
+        synchronized (recorders) {
+            return recorders.size();
+        }
+    }
+
+    private Recorder newRecorder() {
+        Recorder threadRecorder = new Recorder(Thread.currentThread());
+        synchronized (recorders) {
+            retireDeadThreads();
+            recorders.add(threadRecorder);
+        }
+        return threadRecorder;
+    }
+
+    // A dead thread's last writes are visible once isAlive() returns false
+    private void retireDeadThreads() {
+        Iterator<Recorder> iterator = recorders.iterator();
+        while (iterator.hasNext()) {
+            Recorder threadRecorder = iterator.next();
+            if (!threadRecorder.owner.isAlive()) {
+                threadRecorder.addTo(retired);
+                iterator.remove();
+            }
+        }
+    }
+
+    /*
+    The counters of a single thread. Only the owning thread writes to them,
+    so there's no need for compare and set, just an ordered write that
+    the snapshot thread will eventually see.
+     */
+    private static class Recorder {
+
+        private final Thread owner;
+        private final AtomicLongArray latencies = new AtomicLongArray(BRANCHES.length * LATENCY_BUCKETS);
+
+        private Recorder(Thread owner) {
+            this.owner = owner;
+        }
+
+        private void addTo(long[] totals) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += latencies.get(i);
+            }
+        }
+
+        private void record(Branch branch, long elapsedNanos) {
+            int bucket = 63 - Long.numberOfLeadingZeros(Math.max(1, elapsedNanos));
+            int index = branch.ordinal() * LATENCY_BUCKETS + bucket;
+            latencies.lazySet(index, latencies.get(index) + 1);
+        }
+    }
+
+    /**
+     * The counts and latency histograms of every branch at one point in time.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long[][] latencies;
+
+        private Snapshot(long[] counts, long[][] latencies) {
+            this.counts = counts;
+            this.latencies = latencies;
+        }
+
+        public long getCount(Branch branch) {
+            return counts[branch.ordinal()];
+        }
+
+        /**
+         * @return the number of calls per latency bucket, bucket i counts calls
+         * that took between 2^i and 2^(i+1) nanoseconds
+         */
+        public long[] getLatencyHistogram(Branch branch) {
+            return latencies[branch.ordinal()].clone();
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return an upper bound of the latency of that percentile, in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getLatencyPercentile(Branch branch, double percentile) {
+            long total = getCount(branch);
+            if (total == 0) {
+                return 0;
+            }
+
+            long target = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            long[] histogram = latencies[branch.ordinal()];
+            for (int bucket = 0; bucket < LATENCY_BUCKETS; bucket++) {
+                seen += histogram[bucket];
+                if (seen >= target && seen > 0) {
+                    return bucket == 62 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("Snapshot{");
+            for (Branch branch : BRANCHES) {
+                if (branch.ordinal() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(branch).append('=').append(getCount(branch));
+            }
+            return builder.append('}').toString();
+        }
+    }
+}
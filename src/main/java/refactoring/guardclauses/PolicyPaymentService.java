@@ -0,0 +1,60 @@
+package refactoring.guardclauses;
+
+import java.math.BigDecimal;
+
+/**
+ * Pays employees according to a configurable {@link PayoutPolicy}.
+ *
+ * The policy can be swapped at any time. A payroll run should read {@link #getPolicy()}
+ * once and pay everyone with it, so the whole run uses the same amounts even if
+ * a new policy is published halfway through.
+ */
+public class PolicyPaymentService {
+
+    // Policies are immutable, so publishing a new one is all it takes to swap it
+    private volatile PayoutPolicy policy;
+
+    public PolicyPaymentService() {
+        this(PayoutPolicy.standard());
+    }
+
+    public PolicyPaymentService(PayoutPolicy policy) {
+        this.policy = policy;
+    }
+
+    public PayoutPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(PayoutPolicy policy) {
+        if (null == policy) {
+            throw new IllegalArgumentException("A payout policy is required");
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * Takes an employee and pays them according to their employment status and the current policy.
+     *
+     * @param employee the employee to be paid
+     * @return the amount they should be paid.
+     */
+    public BigDecimal payEmployee(Employee employee) {
+        if (employee == null) {
+            throw new RuntimeException("There was no employee supplied");
+        }
+
+        return policy.payout(employee.getStatus());
+    }
+
+    /**
+     * Same as {@link #payEmployee(Employee)}, using the overrides of the employee's department.
+     */
+    public BigDecimal payEmployee(Employee employee, String department) {
+        if (employee == null) {
+            throw new RuntimeException("There was no employee supplied");
+        }
+
+        return policy.payout(department, employee.getStatus());
+    }
+}
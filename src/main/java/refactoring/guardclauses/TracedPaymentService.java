@@ -0,0 +1,33 @@
+package refactoring.guardclauses;
+
+import java.math.BigDecimal;
+
+/**
+ * Wraps a {@link PaymentServiceRefactor} and reports each payment to a {@link PayrollTracer}.
+ *
+ * The guard clauses stay exactly as they are, this class only times the call and
+ * looks up which guard clause fired with {@link PayrollTracer.Branch#of(Employee)}.
+ */
+public class TracedPaymentService {
+
+    private final PaymentServiceRefactor paymentService;
+    private final PayrollTracer tracer;
+
+    public TracedPaymentService(PaymentServiceRefactor paymentService, PayrollTracer tracer) {
+        this.paymentService = paymentService;
+        this.tracer = tracer;
+    }
+
+    public BigDecimal payEmployee(Employee employee) {
+        if (!tracer.isEnabled()) {
+            return paymentService.payEmployee(employee);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return paymentService.payEmployee(employee);
+        } finally {
+            tracer.record(PayrollTracer.Branch.of(employee), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package refactoring.switchstatements;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class AsyncDepartmentStore {
+
+    private final Executor executor;
+    private final int maxInFlight;
+
+    /**
+     * @param executor    runs the discount strategies. A thread per task executor
+     *                    (like virtual threads on newer JDKs) works well for strategies that block.
+     * @param maxInFlight the most strategies allowed to run at once per call to applyDiscounts().
+     *                    Concurrent calls each get their own limit, bound the executor to cap them all.
+     */
+    public AsyncDepartmentStore(Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one discount must be allowed in flight");
+        }
+
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /*
+    Same idea as DepartmentStoreFunctionalRefactor, we pass in the discount calculation.
+    The difference is that the calculation can take a while (e.g. asking a loyalty service),
+    so instead of a Double it returns a CompletionStage that completes with one later on,
+    and the checkout thread doesn't have to wait around for it.
+     */
+    public static CompletableFuture<Double> applyDiscount(Payment payment,
+                                                          Function<Payment, ? extends CompletionStage<Double>> discountCalculator) {
+
+        return discountCalculator.apply(payment).toCompletableFuture();
+    }
+
+    /**
+     * Turns a regular, blocking, discount strategy into one that runs on the executor.
+     *
+     * @param discountCalculator the blocking strategy
+     * @return the async strategy
+     */
+    public Function<Payment, CompletableFuture<Double>> async(Function<Payment, Double> discountCalculator) {
+        return payment -> CompletableFuture.supplyAsync(() -> discountCalculator.apply(payment), executor);
+    }
+
+    /**
+     * Discounts every payment concurrently, with at most maxInFlight strategies of this call
+     * running at a time. If any discount fails, or the strategy returns null instead of a stage,
+     * no new ones are started and the result fails with the same exception.
+     * The strategy is always called on the executor, so one that blocks before returning
+     * its stage, or that just returns a completed future, still runs in parallel.
+     *
+     * @param payments           the payments to discount
+     * @param discountCalculator the async discount strategy
+     * @return the discounted values, in the same order as the payments
+     */
+    public CompletableFuture<List<Double>> applyDiscounts(List<Payment> payments,
+                                                          Function<Payment, ? extends CompletionStage<Double>> discountCalculator) {
+
+        FanOut fanOut = new FanOut(payments, discountCalculator);
+        fanOut.drain();
+        return fanOut.result;
+    }
+
+    /*
+    Starts a new discount each time one finishes, until all the payments are done.
+
+    A strategy might complete right away on the calling thread, which would call drain()
+    again from inside drain(). Instead of recursing (and overflowing the stack on big lists),
+    only one thread drains at a time and the others just ask it to go around once more.
+     */
+    private class FanOut {
+
+        private final List<Payment> payments;
+        private final Function<Payment, ? extends CompletionStage<Double>> discountCalculator;
+        private final Double[] discounted;
+        private final CompletableFuture<List<Double>> result = new CompletableFuture<>();
+
+        private final AtomicInteger drainRequests = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger remaining;
+        // Only touched while draining, the drainRequests counter makes the writes visible
+        private int next;
+
+        private FanOut(List<Payment> payments, Function<Payment, ? extends CompletionStage<Double>> discountCalculator) {
+            this.payments = payments;
+            this.discountCalculator = discountCalculator;
+            this.discounted = new Double[payments.size()];
+            this.remaining = new AtomicInteger(payments.size());
+
+            if (payments.isEmpty()) {
+                result.complete(List.of());
+            }
+        }
+
+        private void drain() {
+            if (drainRequests.getAndIncrement() != 0) {
+                return; // Whoever is draining will go around again
+            }
+
+            int requests = 1;
+            do {
+                while (next < discounted.length && inFlight.get() < maxInFlight && !result.isDone()) {
+                    inFlight.incrementAndGet();
+                    start(next++);
+                }
+                requests = drainRequests.addAndGet(-requests);
+            } while (requests != 0);
+        }
+
+        private void start(int index) {
+            CompletableFuture<Double> discount;
+            try {
+                // thenCompose() also turns a strategy that throws or returns null into a failed discount
+                discount = CompletableFuture.supplyAsync(() -> payments.get(index), executor)
+                        .thenCompose(discountCalculator);
+            } catch (RuntimeException e) {
+                // E.g. a RejectedExecutionException from an executor that was shut down mid-batch.
+                // Thrown from inside another discount's callback it would be lost, so fail the batch here
+                result.completeExceptionally(e);
+                return;
+            }
+
+            discount.whenComplete((value, error) -> finish(index, value, error));
+        }
+
+        private void finish(int index, Double value, Throwable error) {
+            if (null != error) {
+                result.completeExceptionally(error);
+                return;
+            }
+
+            discounted[index] = value;
+            inFlight.decrementAndGet();
+
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(Arrays.asList(discounted));
+            } else {
+                drain();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package refactoring.switchstatements;
+
+import java.util.List;
+
+public class BulkDepartmentStore {
+
+    private final DiscountTable discounts;
+
+    public BulkDepartmentStore() {
+        this(DiscountTable.standard());
+    }
+
+    public BulkDepartmentStore(DiscountTable discounts) {
+        this.discounts = discounts;
+    }
+
+    /*
+    The other department stores discount one Payment at a time and box every result in a Double.
+    That's fine for a single checkout, but when settling millions of payments the
+    per-payment dispatch and allocations add up.
+
+    Here the payments are laid out as parallel arrays: values[i] is the amount and
+    types[i] is the PaymentType ordinal of payment i. The discount becomes a DiscountTable
+    lookup instead of a switch or a virtual call, so the loop has no branches
+    and doesn't allocate anything.
+     */
+
+    /**
+     * Applies the discount of each payment type to a batch of payments.
+     *
+     * @param values     the payment amounts
+     * @param types      the {@link PaymentType#ordinal()} of each payment
+     * @param discounted where the discounted amounts are written, can be the same array as values
+     */
+    public void applyDiscounts(double[] values, byte[] types, double[] discounted) {
+        if (values.length != types.length || values.length > discounted.length) {
+            throw new IllegalArgumentException("The values, types and output arrays must have matching lengths");
+        }
+
+        // Read the rates once, so the whole batch uses the same table
+        // even if it is swapped halfway through
+        double[] rates = discounts.snapshot();
+        for (int i = 0; i < values.length; i++) {
+            discounted[i] = values[i] * rates[types[i]];
+        }
+    }
+
+    /**
+     * Converts payment objects into the parallel arrays used by
+     * {@link #applyDiscounts(double[], byte[], double[])}.
+     *
+     * @param payments the payments to convert
+     * @param values   where the amounts are written
+     * @param types    where the payment type ordinals are written
+     */
+    public static void toColumns(List<Payment> payments, double[] values, byte[] types) {
+        for (int i = 0; i < payments.size(); i++) {
+            Payment payment = payments.get(i);
+            values[i] = payment.getValue();
+            types[i] = (byte) payment.getType().ordinal();
+        }
+    }
+}
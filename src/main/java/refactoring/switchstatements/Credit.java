@@ -2,14 +2,12 @@ package refactoring.switchstatements;
 
 public class Credit extends PaymentRefactor{
 
-    private static final double DISCOUNT = 0.8;
-
     public Credit(Double value) {
         super(value);
     }
 
     @Override
     Double applyDiscount() {
-        return super.getValue() * DISCOUNT;
+        return super.getValue() * DiscountTable.standard().rate(PaymentType.CREDIT);
     }
 }
@@ -2,7 +2,14 @@ package refactoring.switchstatements;
 
 public class DepartmentStore {
 
+    private final DiscountTable discounts;
+
     public DepartmentStore() {
+        this(DiscountTable.standard());
+    }
+
+    public DepartmentStore(DiscountTable discounts) {
+        this.discounts = discounts;
     }
 
     /*
@@ -42,13 +49,13 @@ public class DepartmentStore {
 
         switch (payment.getType()) {
             case CASH:
-                discountedPrice = payment.getValue() * 0.7;
+                discountedPrice = payment.getValue() * discounts.rate(PaymentType.CASH);
                 break;
             case CREDIT:
-                discountedPrice = payment.getValue() * 0.8;
+                discountedPrice = payment.getValue() * discounts.rate(PaymentType.CREDIT);
                 break;
             case DEBIT:
-                discountedPrice = payment.getValue() * 0.9;
+                discountedPrice = payment.getValue() * discounts.rate(PaymentType.DEBIT);
                 break;
             default:
                 discountedPrice = payment.getValue();
@@ -4,9 +4,15 @@ import java.util.function.Function;
 
 public class DepartmentStoreFunctionalRefactor {
 
-    public static final Function<Payment, Double> CASH_DISCOUNT = payment -> payment.getValue() * 0.7;
-    public static final Function<Payment, Double> CREDIT_DISCOUNT = payment -> payment.getValue() * 0.8;
-    public static final Function<Payment, Double> DEBIT_DISCOUNT = payment -> payment.getValue() * 0.9;
+    @DiscountStrategyFor(PaymentType.CASH)
+    public static final Function<Payment, Double> CASH_DISCOUNT =
+            payment -> payment.getValue() * DiscountTable.standard().rate(PaymentType.CASH);
+    @DiscountStrategyFor(PaymentType.CREDIT)
+    public static final Function<Payment, Double> CREDIT_DISCOUNT =
+            payment -> payment.getValue() * DiscountTable.standard().rate(PaymentType.CREDIT);
+    @DiscountStrategyFor(PaymentType.DEBIT)
+    public static final Function<Payment, Double> DEBIT_DISCOUNT =
+            payment -> payment.getValue() * DiscountTable.standard().rate(PaymentType.DEBIT);
 
     public DepartmentStoreFunctionalRefactor() {
     }
@@ -0,0 +1,19 @@
+package refactoring.switchstatements;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a static final {@code Function<Payment, Double>} field as the discount strategy of a {@link PaymentType}.
+ *
+ * At compile time the annotated fields are collected into the generated {@code DiscountDispatch}
+ * class, and the build fails if a payment type has no strategy or more than one.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface DiscountStrategyFor {
+
+    PaymentType value();
+}
@@ -0,0 +1,140 @@
+package refactoring.switchstatements;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The discount rate of each {@link PaymentType}, indexed by ordinal.
+ *
+ * Rates can be changed at runtime. Every change copies the array and publishes
+ * the copy with a compare and set, so readers never lock and never see a half updated table.
+ * Reading a rate is a volatile read plus an array read.
+ *
+ * The {@link #standard()} table can't be changed, it's shared by every payment and store
+ * that isn't given a table. Code that wants to change rates at runtime creates its own
+ * table and passes it to the stores that should use it.
+ */
+public class DiscountTable {
+
+    private static final DiscountTable STANDARD = new DiscountTable(false);
+
+    private static final VarHandle RATES;
+
+    static {
+        try {
+            RATES = MethodHandles.lookup().findVarHandle(DiscountTable.class, "rates", double[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Never modified once published, updates swap in a new array
+    private volatile double[] rates;
+    private final boolean updatable;
+
+    /**
+     * Creates a table with the standard rates: cash 0.7, credit 0.8 and debit 0.9.
+     */
+    public DiscountTable() {
+        this(true);
+    }
+
+    private DiscountTable(boolean updatable) {
+        this.updatable = updatable;
+
+        double[] standardRates = new double[PaymentType.values().length];
+        standardRates[PaymentType.CASH.ordinal()] = 0.7;
+        standardRates[PaymentType.CREDIT.ordinal()] = 0.8;
+        standardRates[PaymentType.DEBIT.ordinal()] = 0.9;
+        this.rates = standardRates;
+    }
+
+    /**
+     * @return the table shared by the department stores and payments that aren't given one,
+     * its rates can't be changed
+     */
+    public static DiscountTable standard() {
+        return STANDARD;
+    }
+
+    /**
+     * @param type the payment type
+     * @return the multiplier to apply to a payment of that type
+     */
+    public double rate(PaymentType type) {
+        return rates[type.ordinal()];
+    }
+
+    /**
+     * Changes the rate of one payment type.
+     *
+     * @param type the payment type
+     * @param rate the new multiplier
+     */
+    public void setRate(PaymentType type, double rate) {
+        checkUpdatable();
+        checkRate(type, rate);
+
+        double[] current;
+        double[] updated;
+        do {
+            current = rates;
+            updated = Arrays.copyOf(current, current.length);
+            updated[type.ordinal()] = rate;
+        } while (!RATES.compareAndSet(this, current, updated));
+    }
+
+    /**
+     * Replaces every rate at once, readers either see all the old rates or all the new ones.
+     *
+     * @param newRates the new multiplier of every payment type
+     */
+    public void replaceAll(Map<PaymentType, Double> newRates) {
+        checkUpdatable();
+
+        double[] updated = new double[PaymentType.values().length];
+        for (PaymentType type : PaymentType.values()) {
+            Double rate = newRates.get(type);
+            if (null == rate) {
+                throw new IllegalArgumentException("Missing a discount rate for " + type);
+            }
+            checkRate(type, rate);
+            updated[type.ordinal()] = rate;
+        }
+
+        // Published the same way as setRate(), the new rates win over whatever was there
+        double[] current;
+        do {
+            current = rates;
+        } while (!RATES.compareAndSet(this, current, updated));
+    }
+
+    /*
+    The current rates array, for bulk operations that want one consistent
+    view of the table for a whole batch. It must not be modified.
+     */
+    double[] snapshot() {
+        return rates;
+    }
+
+    private void checkUpdatable() {
+        if (!updatable) {
+            throw new UnsupportedOperationException("The standard discount table can't be changed, create your own DiscountTable");
+        }
+    }
+
+    private static void checkRate(PaymentType type, double rate) {
+        if (!Double.isFinite(rate) || rate < 0) {
+            throw new IllegalArgumentException("Invalid discount rate for " + type + ": " + rate);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountTable{" +
+                "rates=" + Arrays.toString(rates) +
+                '}';
+    }
+}
@@ -0,0 +1,183 @@
+package refactoring.switchstatements;
+
+import java.util.Arrays;
+
+/*
+A fixed capacity map from primitive long keys to values that evicts the
+least recently used entry when it's full.
+
+Entries live in parallel arrays, linked into a doubly linked list in recency order,
+and are found through an open addressing (linear probing) hash table of entry indexes.
+Nothing is allocated after construction, and keys are never boxed.
+
+Not thread safe, callers must synchronize.
+ */
+class LongLruCache<V> {
+
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final long[] keys;
+    private final Object[] values;
+    private final int[] previous;
+    private final int[] next;
+
+    // Entry index + 1, so 0 marks an empty slot
+    private final int[] table;
+    private final int mask;
+
+    private int size;
+    private int mostRecent = NONE;
+    private int leastRecent = NONE;
+
+    LongLruCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at least 1");
+        }
+
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.previous = new int[capacity];
+        this.next = new int[capacity];
+
+        // Twice the capacity, rounded up to a power of 2, so a full cache still leaves half the slots empty
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int entry = find(key);
+        if (entry == NONE) {
+            return null;
+        }
+
+        moveToFront(entry);
+        return (V) values[entry];
+    }
+
+    void put(long key, V value) {
+        int entry = find(key);
+        if (entry != NONE) {
+            values[entry] = value;
+            moveToFront(entry);
+            return;
+        }
+
+        if (size == capacity) {
+            // Reuse the least recently used entry
+            entry = leastRecent;
+            removeFromTable(entry);
+            unlink(entry);
+        } else {
+            entry = size++;
+        }
+
+        keys[entry] = key;
+        values[entry] = value;
+        addToTable(entry);
+        linkFront(entry);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        mostRecent = NONE;
+        leastRecent = NONE;
+    }
+
+    private int find(long key) {
+        for (int slot = home(key); table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (keys[entry] == key) {
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private void addToTable(int entry) {
+        int slot = home(keys[entry]);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    private void removeFromTable(int entry) {
+        int slot = home(keys[entry]);
+        while (table[slot] != entry + 1) {
+            slot = (slot + 1) & mask;
+        }
+
+        // Backward shift deletion: pull later entries of the probe sequence into the hole
+        // so lookups never stop early at it
+        int hole = slot;
+        table[hole] = 0;
+        for (int current = (hole + 1) & mask; table[current] != 0; current = (current + 1) & mask) {
+            int home = home(keys[table[current] - 1]);
+            if (isCyclicallyBetween(home, hole, current)) {
+                continue; // It's already as close to home as it can be
+            }
+            table[hole] = table[current];
+            table[current] = 0;
+            hole = current;
+        }
+    }
+
+    // True if home is in the range (hole, current], wrapping around the end of the table
+    private static boolean isCyclicallyBetween(int home, int hole, int current) {
+        if (hole <= current) {
+            return hole < home && home <= current;
+        }
+        return hole < home || home <= current;
+    }
+
+    private int home(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void moveToFront(int entry) {
+        if (entry != mostRecent) {
+            unlink(entry);
+            linkFront(entry);
+        }
+    }
+
+    private void linkFront(int entry) {
+        previous[entry] = NONE;
+        next[entry] = mostRecent;
+        if (mostRecent != NONE) {
+            previous[mostRecent] = entry;
+        }
+        mostRecent = entry;
+        if (leastRecent == NONE) {
+            leastRecent = entry;
+        }
+    }
+
+    private void unlink(int entry) {
+        int before = previous[entry];
+        int after = next[entry];
+
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            mostRecent = after;
+        }
+
+        if (after != NONE) {
+            previous[after] = before;
+        } else {
+            leastRecent = before;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package refactoring.switchstatements;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Wraps a discount strategy, like the ones in {@link DepartmentStoreFunctionalRefactor},
+ * and remembers its results per payment type and amount.
+ *
+ * Stores usually only have a few thousand price points, so most payments hit the cache and
+ * get back the Double computed the first time, instead of redoing the math and boxing a new one.
+ * Each payment type has its own set of lock-striped LRU caches, keyed on the raw bits of the amount.
+ * Eviction is least recently used within a stripe, not across the whole cache, so a busy stripe
+ * can evict an amount while other stripes still have room.
+ *
+ * Only wrap strategies whose result depends on nothing but the payment's type, its value
+ * and the rates of a {@link DiscountTable}. The cache remembers which rates its results were
+ * computed with, so a {@link DiscountTable#setRate} or {@link DiscountTable#replaceAll} takes
+ * effect on the next payment, just like it does for the unwrapped strategy.
+ * Changes are spotted by comparing the table's rates array by identity, so this only works
+ * if the strategy reads its rates from the same table the cache was given. Rates the strategy
+ * gets from anywhere else are never noticed.
+ */
+public class MemoizedDiscount implements Function<Payment, Double> {
+
+    private static final int STRIPES = 16; // Must be a power of 2
+
+    private final Function<Payment, Double> strategy;
+    private final DiscountTable discounts;
+    private final LongLruCache<Double>[][] caches;
+    // The rates each cache was filled with, guarded by the cache's monitor
+    private final double[][][] cachedRates;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private MemoizedDiscount(Function<Payment, Double> strategy, int capacity, DiscountTable discounts) {
+        this.strategy = strategy;
+        this.discounts = discounts;
+
+        int perStripe = Math.max(1, capacity / STRIPES);
+        PaymentType[] types = PaymentType.values();
+        @SuppressWarnings({"unchecked", "rawtypes"}) // Java can't create generic arrays
+        LongLruCache<Double>[][] newCaches = new LongLruCache[types.length][STRIPES];
+        this.caches = newCaches;
+        this.cachedRates = new double[types.length][STRIPES][];
+        for (int type = 0; type < types.length; type++) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                caches[type][stripe] = new LongLruCache<>(perStripe);
+            }
+        }
+    }
+
+    /**
+     * Memoizes a strategy that reads the rates of {@link DiscountTable#standard()},
+     * like the ones in {@link DepartmentStoreFunctionalRefactor}.
+     *
+     * @param strategy the discount strategy to memoize
+     * @param capacity roughly how many amounts to remember per payment type
+     * @return the memoized strategy
+     */
+    public static MemoizedDiscount of(Function<Payment, Double> strategy, int capacity) {
+        return of(strategy, capacity, DiscountTable.standard());
+    }
+
+    /**
+     * @param strategy  the discount strategy to memoize
+     * @param capacity  roughly how many amounts to remember per payment type
+     * @param discounts the table the strategy reads its rates from
+     * @return the memoized strategy
+     */
+    public static MemoizedDiscount of(Function<Payment, Double> strategy, int capacity, DiscountTable discounts) {
+        return new MemoizedDiscount(strategy, capacity, discounts);
+    }
+
+    @Override
+    public Double apply(Payment payment) {
+        long key = Double.doubleToLongBits(payment.getValue());
+        int type = payment.getType().ordinal();
+        int stripe = stripe(key);
+        LongLruCache<Double> cache = caches[type][stripe];
+
+        // Every rate change publishes a new array, so comparing identities spots it
+        double[] rates = discounts.snapshot();
+
+        Double discounted;
+        synchronized (cache) {
+            if (cachedRates[type][stripe] != rates) {
+                cache.clear();
+                cachedRates[type][stripe] = rates;
+            }
+            discounted = cache.get(key);
+        }
+
+        if (null != discounted) {
+            hits.increment();
+            return discounted;
+        }
+
+        // Compute outside the lock, a slow strategy shouldn't block the other amounts in the stripe
+        misses.increment();
+        discounted = strategy.apply(payment);
+        synchronized (cache) {
+            // Unless the rates changed while computing
+            if (cachedRates[type][stripe] == rates) {
+                cache.put(key, discounted);
+            }
+        }
+        return discounted;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static int stripe(long key) {
+        long hash = key * 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash >>> 60) & (STRIPES - 1);
+    }
+}
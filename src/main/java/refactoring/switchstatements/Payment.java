@@ -1,6 +1,12 @@
 package refactoring.switchstatements;
 
 public class Payment {
+
+    private static final Payment CASH_PAYMENT = new Payment(100.0, PaymentType.CASH);
+    private static final Payment DEBIT_PAYMENT = new Payment(100.0, PaymentType.DEBIT);
+    private static final Payment CREDIT_PAYMENT = new Payment(100.0, PaymentType.CREDIT);
+    private static final PaymentCache CACHE = new PaymentCache();
+
     private final Double value;
     private final PaymentType type;
 
@@ -30,16 +36,34 @@ public class Payment {
                 '}';
     }
 
+    /*
+    Payments are immutable, so the static factories can hand out the same
+    instance every time instead of allocating a new Payment and Double.
+    Check out the presentation under src/main/java/effectivejava/staticfactories to learn
+    more about static factory methods
+     */
     public static Payment createCashPayment() {
-        return new Payment(100.0, PaymentType.CASH);
+        return CASH_PAYMENT;
     }
 
     public static Payment createDebitPayment() {
-        return new Payment(100.0, PaymentType.DEBIT);
+        return DEBIT_PAYMENT;
     }
 
     public static Payment createCreditPayment() {
-        return new Payment(100.0, PaymentType.CREDIT);
+        return CREDIT_PAYMENT;
+    }
+
+    /**
+     * Returns a payment for the value and type, reusing a cached instance
+     * for frequently seen price points.
+     *
+     * @param value the amount of the payment
+     * @param type  the type of payment
+     * @return a payment with that value and type, possibly shared
+     */
+    public static Payment of(double value, PaymentType type) {
+        return CACHE.get(value, type);
     }
 
 }
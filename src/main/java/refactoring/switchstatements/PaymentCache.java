@@ -0,0 +1,39 @@
+package refactoring.switchstatements;
+
+/*
+A fixed size, direct mapped cache of Payments, one per payment type.
+
+Each (value, type) pair hashes to a single slot. A hit returns the cached Payment,
+a miss creates a new one and overwrites the slot. The cache never grows, and a
+lookup doesn't allocate anything, not even a boxed key.
+
+Payments are immutable, so it's fine for threads to race on a slot:
+the worst case is that both create a Payment and one of them gets cached.
+ */
+class PaymentCache {
+
+    private static final int SLOTS_PER_TYPE = 1024; // Must be a power of 2
+
+    private final Payment[][] slots = new Payment[PaymentType.values().length][SLOTS_PER_TYPE];
+
+    Payment get(double value, PaymentType type) {
+        long bits = Double.doubleToLongBits(value);
+        Payment[] typeSlots = slots[type.ordinal()];
+        int index = slotFor(bits);
+
+        Payment cached = typeSlots[index];
+        if (null != cached && Double.doubleToLongBits(cached.getValue()) == bits) {
+            return cached;
+        }
+
+        Payment payment = new Payment(value, type);
+        typeSlots[index] = payment;
+        return payment;
+    }
+
+    private static int slotFor(long bits) {
+        // Spread the bits, prices like 100.0 and 200.0 only differ in the high bits
+        long hash = bits * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 54) & (SLOTS_PER_TYPE - 1);
+    }
+}
@@ -0,0 +1,193 @@
+package refactoring.switchstatements;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An append only, binary audit log of discounted payments.
+ *
+ * Each entry is a fixed size record: the payment type ordinal, the payment value
+ * and the discounted value. Entries are buffered in memory and written in groups,
+ * and {@link #sync()} forces everything appended so far to disk. Threads that call sync()
+ * while another thread's fsync is in progress wait for it, and the first of them then issues
+ * a single fsync covering all of their entries (group commit).
+ * The journal is split into segment files that are rolled once they reach a maximum size,
+ * use {@link PaymentJournalReader} to replay them.
+ */
+public class PaymentJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x504A4E4C; // "PJNL"
+    static final int HEADER_BYTES = Integer.BYTES;
+    static final int RECORD_BYTES = Byte.BYTES + Double.BYTES + Double.BYTES;
+    static final String SEGMENT_PREFIX = "payments-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int BUFFERED_RECORDS = 4096;
+    private static final Pattern SEGMENT_NAME = Pattern.compile(
+            Pattern.quote(SEGMENT_PREFIX) + "\\d{1,9}" + Pattern.quote(SEGMENT_SUFFIX));
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERED_RECORDS * RECORD_BYTES);
+
+    // Guarded by this
+    private FileChannel segment;
+    private long segmentBytes;
+    private int nextSegmentNumber;
+    private long appended;
+
+    // Only one thread forces at a time, the others queue up behind it on this lock
+    private final Object syncLock = new Object();
+    private volatile long durable;
+
+    /**
+     * Opens a journal, new entries are written to a new segment after any existing ones.
+     * The segment is only created once something is appended.
+     *
+     * @param directory       where the segment files live
+     * @param maxSegmentBytes the size at which a segment is closed and a new one started,
+     *                        at most {@link Integer#MAX_VALUE} since the reader maps a whole segment
+     */
+    public PaymentJournal(Path directory, long maxSegmentBytes) throws IOException {
+        if (maxSegmentBytes < HEADER_BYTES + RECORD_BYTES) {
+            throw new IllegalArgumentException("A segment must be able to hold at least one record");
+        }
+        if (maxSegmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A segment can be at most " + Integer.MAX_VALUE + " bytes, was " + maxSegmentBytes);
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.maxSegmentBytes = maxSegmentBytes;
+
+        List<Path> existing = segments(directory);
+        this.nextSegmentNumber = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+    }
+
+    /**
+     * Appends a discounted payment. It's only guaranteed to be on disk after the next {@link #sync()}.
+     *
+     * @param payment    the payment
+     * @param discounted the value after the discount
+     */
+    public synchronized void append(Payment payment, double discounted) throws IOException {
+        if (null == segment) {
+            rollSegment();
+        } else if (segmentBytes + buffer.position() + RECORD_BYTES > maxSegmentBytes) {
+            writeBuffer();
+            rollSegment();
+        } else if (buffer.remaining() < RECORD_BYTES) {
+            writeBuffer();
+        }
+
+        buffer.put((byte) payment.getType().ordinal());
+        buffer.putDouble(payment.getValue());
+        buffer.putDouble(discounted);
+        appended++;
+    }
+
+    /**
+     * Writes every entry appended so far and forces it to disk.
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+
+        synchronized (syncLock) {
+            // The force we waited on may already have covered our entries
+            if (durable >= target) {
+                return;
+            }
+
+            long covered;
+            FileChannel channel;
+            synchronized (this) {
+                if (null == segment) {
+                    return;
+                }
+                writeBuffer();
+                covered = appended;
+                channel = segment;
+            }
+
+            // Force without holding the append lock, so appends carry on during the fsync
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Rolling forces a segment before closing it, so a rolled segment is on disk. If it's still
+                // the current one something else closed it, e.g. an interrupt, and the entries may not be
+                synchronized (this) {
+                    if (segment == channel) {
+                        throw e;
+                    }
+                }
+            }
+            durable = covered;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        synchronized (this) {
+            if (null != segment) {
+                segment.close();
+            }
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentBytes += segment.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void rollSegment() throws IOException {
+        if (null != segment) {
+            segment.force(false);
+            segment.close();
+        }
+
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        segmentBytes = HEADER_BYTES;
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    // By number, the zero padding stops lining up after segment 999999
+                    .sorted(Comparator.comparingInt(PaymentJournal::segmentNumber))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
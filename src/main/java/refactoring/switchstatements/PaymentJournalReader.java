@@ -0,0 +1,81 @@
+package refactoring.switchstatements;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Replays the segments written by a {@link PaymentJournal}.
+ *
+ * Segments are memory mapped and read in place. The recorded discount comes back
+ * alongside the discount computed by whichever strategy is being replayed,
+ * e.g. to check what last month's payments would have cost under a new DiscountTable.
+ */
+public class PaymentJournalReader {
+
+    /**
+     * Receives every replayed entry.
+     */
+    @FunctionalInterface
+    public interface ReplayListener {
+
+        void onPayment(Payment payment, double recordedDiscount, double replayedDiscount);
+    }
+
+    private final Path directory;
+
+    public PaymentJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Runs a discount strategy over every journaled payment, oldest first.
+     * A partially written record at the end of a segment (e.g. after a crash) is skipped.
+     *
+     * @param discountCalculator the strategy to replay, e.g. {@code new DepartmentStore()::applyDiscount}
+     * @param listener           receives each payment with its recorded and replayed discounts
+     * @return the number of payments replayed
+     */
+    public long replay(Function<Payment, Double> discountCalculator, ReplayListener listener) throws IOException {
+        PaymentType[] types = PaymentType.values();
+        long replayed = 0;
+
+        for (Path segment : PaymentJournal.segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                if (buffer.remaining() < PaymentJournal.HEADER_BYTES || buffer.getInt() != PaymentJournal.MAGIC) {
+                    throw new IOException("Not a payment journal segment: " + segment);
+                }
+
+                while (buffer.remaining() >= PaymentJournal.RECORD_BYTES) {
+                    int ordinal = buffer.get();
+                    if (ordinal < 0 || ordinal >= types.length) {
+                        throw new IOException("Unknown payment type " + ordinal + " at byte "
+                                + (buffer.position() - 1) + " of " + segment);
+                    }
+                    PaymentType type = types[ordinal];
+                    double value = buffer.getDouble();
+                    double recorded = buffer.getDouble();
+
+                    Payment payment = Payment.of(value, type);
+                    listener.onPayment(payment, recorded, discountCalculator.apply(payment));
+                    replayed++;
+                }
+            }
+        }
+
+        return replayed;
+    }
+
+    /**
+     * @return the journaled segment files, oldest first
+     */
+    public List<Path> segments() throws IOException {
+        return PaymentJournal.segments(directory);
+    }
+}
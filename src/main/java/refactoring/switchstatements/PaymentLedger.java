@@ -0,0 +1,130 @@
+package refactoring.switchstatements;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps running totals of discounted revenue, and payment counts, per {@link PaymentType}.
+ *
+ * A single counter per type would make every checkout thread fight over the same cache line.
+ * Like {@link java.util.concurrent.atomic.LongAdder}, each type is split into stripes and each
+ * thread adds to its own stripe. Stripes are padded apart so they never share a cache line.
+ * Amounts are kept as a long number of millionths, so the totals don't drift
+ * the way adding up doubles does.
+ *
+ * Reading the totals sums the stripes without locking. Payments recorded while the
+ * snapshot is being taken may or may not be included.
+ */
+public class PaymentLedger {
+
+    private static final int SCALE = 6;
+    private static final double UNITS_PER_AMOUNT = 1_000_000.0;
+
+    // 16 longs = 128 bytes between stripes, enough to cover the adjacent cache line prefetcher
+    private static final int STRIDE = 16;
+    private static final int TOTAL_OFFSET = 0;
+    private static final int COUNT_OFFSET = 1;
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int stripeMask;
+    private final long[][] cellsByType;
+
+    public PaymentLedger() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    PaymentLedger(int minimumStripes) {
+        int stripes = Integer.highestOneBit(Math.max(1, minimumStripes * 2 - 1));
+        this.stripeMask = stripes - 1;
+        this.cellsByType = new long[PaymentType.values().length][stripes * STRIDE];
+    }
+
+    /**
+     * Records one discounted payment.
+     *
+     * @param type       the type of the payment
+     * @param discounted the amount after the discount
+     */
+    public void record(PaymentType type, double discounted) {
+        long[] cells = cellsByType[type.ordinal()];
+        int base = stripe() * STRIDE;
+
+        CELLS.getAndAdd(cells, base + TOTAL_OFFSET, Math.round(discounted * UNITS_PER_AMOUNT));
+        CELLS.getAndAdd(cells, base + COUNT_OFFSET, 1L);
+    }
+
+    /**
+     * @return a discount strategy that records every result in this ledger
+     */
+    public Function<Payment, Double> wrap(Function<Payment, Double> strategy) {
+        return payment -> {
+            Double discounted = strategy.apply(payment);
+            record(payment.getType(), discounted);
+            return discounted;
+        };
+    }
+
+    /**
+     * @return a function that applies the store's discount and records the result in this ledger
+     */
+    public Function<Payment, Double> wrap(DepartmentStore store) {
+        return wrap(store::applyDiscount);
+    }
+
+    /**
+     * The polymorphic payments don't carry a type code, that's the point of the refactor,
+     * so the caller says which {@link PaymentType} each one is booked under,
+     * e.g. with a map from payment class to type.
+     *
+     * @param store  the store applying the discount
+     * @param typeOf the type to record each payment under
+     * @return a function that applies the store's discount and records the result in this ledger
+     */
+    public Function<PaymentRefactor, Double> wrap(DepartmentStoreRefactor store,
+                                                  Function<? super PaymentRefactor, PaymentType> typeOf) {
+        return payment -> {
+            Double discounted = store.applyDiscount(payment);
+            record(typeOf.apply(payment), discounted);
+            return discounted;
+        };
+    }
+
+    public BigDecimal getTotal(PaymentType type) {
+        return BigDecimal.valueOf(sum(type, TOTAL_OFFSET), SCALE);
+    }
+
+    public long getCount(PaymentType type) {
+        return sum(type, COUNT_OFFSET);
+    }
+
+    /**
+     * @return the total of every payment type
+     */
+    public Map<PaymentType, BigDecimal> getTotals() {
+        Map<PaymentType, BigDecimal> totals = new EnumMap<>(PaymentType.class);
+        for (PaymentType type : PaymentType.values()) {
+            totals.put(type, getTotal(type));
+        }
+        return totals;
+    }
+
+    private long sum(PaymentType type, int offset) {
+        long[] cells = cellsByType[type.ordinal()];
+        long sum = 0;
+        for (int base = 0; base < cells.length; base += STRIDE) {
+            sum += (long) CELLS.getVolatile(cells, base + offset);
+        }
+        return sum;
+    }
+
+    private int stripe() {
+        // Spread the thread ids, they are usually small consecutive numbers
+        long hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & stripeMask;
+    }
+}
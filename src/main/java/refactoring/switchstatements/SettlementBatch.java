@@ -0,0 +1,38 @@
+package refactoring.switchstatements;
+
+/**
+ * A group of payments of the same type that were settled together.
+ */
+public class SettlementBatch {
+
+    private final PaymentType type;
+    private final int count;
+    private final double discountedTotal;
+
+    SettlementBatch(PaymentType type, int count, double discountedTotal) {
+        this.type = type;
+        this.count = count;
+        this.discountedTotal = discountedTotal;
+    }
+
+    public PaymentType getType() {
+        return type;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getDiscountedTotal() {
+        return discountedTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementBatch{" +
+                "type=" + type +
+                ", count=" + count +
+                ", discountedTotal=" + discountedTotal +
+                '}';
+    }
+}
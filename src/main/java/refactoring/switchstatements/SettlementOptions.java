@@ -0,0 +1,58 @@
+package refactoring.switchstatements;
+
+import java.time.Duration;
+
+/**
+ * How a {@link SettlementPipeline} batches payments.
+ * Check out the long parameter refactor under src/main/java/refactoring/longparamerter
+ * for why these are grouped in one object.
+ */
+public class SettlementOptions {
+
+    private final int batchSize;
+    private final Duration linger;
+    private final int queueCapacity;
+
+    /**
+     * @param batchSize     the number of payments of one type settled together
+     * @param linger        how long a partial batch may wait before it's settled anyway
+     * @param queueCapacity how many payments may wait to be batched before producers are turned away
+     */
+    public SettlementOptions(int batchSize, Duration linger, int queueCapacity) {
+        if (batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("The batch size and queue capacity must be at least 1");
+        }
+        if (linger.isNegative()) {
+            throw new IllegalArgumentException("The linger time can't be negative");
+        }
+
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public static SettlementOptions defaults() {
+        return new SettlementOptions(1024, Duration.ofMillis(10), 65_536);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Duration getLinger() {
+        return linger;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementOptions{" +
+                "batchSize=" + batchSize +
+                ", linger=" + linger +
+                ", queueCapacity=" + queueCapacity +
+                '}';
+    }
+}
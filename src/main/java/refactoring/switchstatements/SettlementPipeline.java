@@ -0,0 +1,270 @@
+package refactoring.switchstatements;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Settles payments submitted by many threads in batches of the same {@link PaymentType}.
+ *
+ * Producers hand payments to a lock-free queue. A single settlement thread drains it,
+ * groups the payments per type and, once a batch is full or has waited longer than
+ * the linger time, applies the discount to the whole batch and emits its total.
+ * When the queue is full {@link #submit(Payment)} refuses the payment instead of
+ * blocking, so callers can see the backpressure and decide what to do.
+ *
+ * A batch the sink fails on is counted and dropped, the pipeline carries on with the next one.
+ */
+public class SettlementPipeline implements AutoCloseable {
+
+    // Check the linger deadlines every so often, even while the queue is busy
+    private static final int LINGER_CHECK_INTERVAL = 64;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final SettlementOptions options;
+    private final DiscountTable discounts;
+    private final Consumer<SettlementBatch> sink;
+
+    private final Queue<Payment> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batchesSettled = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+    // Producers between their running check and their offer, see settle()
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    private final TypeBatch[] batches;
+    private final Thread settlementThread;
+    private volatile boolean running;
+    private volatile boolean stopped;
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * @param options   how to batch the payments
+     * @param discounts the discount rates applied when a batch is settled
+     * @param sink      receives every settled batch, called from the settlement thread
+     */
+    public SettlementPipeline(SettlementOptions options, DiscountTable discounts, Consumer<SettlementBatch> sink) {
+        this.options = options;
+        this.discounts = discounts;
+        this.sink = sink;
+
+        PaymentType[] types = PaymentType.values();
+        this.batches = new TypeBatch[types.length];
+        for (PaymentType type : types) {
+            batches[type.ordinal()] = new TypeBatch(type, options.getBatchSize());
+        }
+
+        this.settlementThread = new Thread(this::settle, "payment-settlement");
+        this.settlementThread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        settlementThread.start();
+    }
+
+    /**
+     * Queues a payment for settlement. Safe to call from any thread.
+     *
+     * @param payment the payment to settle, with a value and a type
+     * @return false if the queue is full and the payment was not accepted
+     */
+    public boolean submit(Payment payment) {
+        if (null == payment || null == payment.getValue() || null == payment.getType()) {
+            throw new IllegalArgumentException("Only payments with a value and a type can be settled: " + payment);
+        }
+
+        // Once closed, refuse without announcing, so producers that keep retrying can't hold up close()
+        if (!running || stopped) {
+            throw new IllegalStateException("The pipeline isn't running");
+        }
+
+        // Announce the submit before checking again, so the settlement thread can't stop in between
+        submitting.incrementAndGet();
+        try {
+            if (!running || stopped) {
+                throw new IllegalStateException("The pipeline isn't running");
+            }
+
+            int depth = queueDepth.incrementAndGet();
+            if (depth > options.getQueueCapacity()) {
+                queueDepth.decrementAndGet();
+                rejected.incrementAndGet();
+                return false;
+            }
+
+            queue.offer(payment);
+            accepted.incrementAndGet();
+            recordPeak(depth);
+            return true;
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting payments, settles everything that is still queued and waits for it to finish.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        settlementThread.join();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    public long getBatchesSettled() {
+        return batchesSettled.get();
+    }
+
+    /**
+     * @return the number of batches that failed to settle, e.g. because the sink threw an exception
+     */
+    public long getBatchesFailed() {
+        return batchesFailed.get();
+    }
+
+    /**
+     * @return the last exception a batch failed with, or null if none failed
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    private void settle() {
+        try {
+            settleUntilClosed();
+        } finally {
+            // If this thread dies, nothing would settle what's submitted from now on
+            stopped = true;
+        }
+    }
+
+    private void settleUntilClosed() {
+        long lingerNanos = options.getLinger().toNanos();
+        int sinceLastCheck = 0;
+
+        /*
+        A producer that saw the pipeline running may not have offered its payment yet.
+        It announced itself before checking, so once running is false, waiting for
+        submitting to drop to 0 before the final empty check means nothing is left behind.
+         */
+        while (running || submitting.get() > 0 || !queue.isEmpty()) {
+            Payment payment = queue.poll();
+
+            if (null == payment) {
+                settleExpired(lingerNanos);
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            queueDepth.decrementAndGet();
+            TypeBatch batch = batches[payment.getType().ordinal()];
+            if (batch.add(payment.getValue())) {
+                settle(batch);
+            }
+
+            if (++sinceLastCheck == LINGER_CHECK_INTERVAL) {
+                sinceLastCheck = 0;
+                settleExpired(lingerNanos);
+            }
+        }
+
+        // Shutting down, settle the partial batches
+        for (TypeBatch batch : batches) {
+            if (!batch.isEmpty()) {
+                settle(batch);
+            }
+        }
+    }
+
+    private void settleExpired(long lingerNanos) {
+        long now = System.nanoTime();
+        for (TypeBatch batch : batches) {
+            if (!batch.isEmpty() && now - batch.startedAt >= lingerNanos) {
+                settle(batch);
+            }
+        }
+    }
+
+    // A batch that fails is counted and dropped, it must never take the settlement thread down
+    private void settle(TypeBatch batch) {
+        try {
+            double rate = discounts.rate(batch.type);
+            double total = 0;
+            for (int i = 0; i < batch.count; i++) {
+                total += batch.values[i] * rate;
+            }
+
+            SettlementBatch settled = new SettlementBatch(batch.type, batch.count, total);
+            batch.clear();
+            sink.accept(settled);
+            batchesSettled.incrementAndGet();
+        } catch (RuntimeException e) {
+            batch.clear();
+            batchesFailed.incrementAndGet();
+            lastFailure = e;
+        }
+    }
+
+    private void recordPeak(int depth) {
+        int peak = peakQueueDepth.get();
+        while (depth > peak && !peakQueueDepth.compareAndSet(peak, depth)) {
+            peak = peakQueueDepth.get();
+        }
+    }
+
+    /*
+    The pending values of one payment type. Only touched by the settlement thread.
+     */
+    private static class TypeBatch {
+
+        private final PaymentType type;
+        private final double[] values;
+        private int count;
+        private long startedAt;
+
+        private TypeBatch(PaymentType type, int size) {
+            this.type = type;
+            this.values = new double[size];
+        }
+
+        // Returns true once the batch is full
+        private boolean add(double value) {
+            if (count == 0) {
+                startedAt = System.nanoTime();
+            }
+            values[count++] = value;
+            return count == values.length;
+        }
+
+        private boolean isEmpty() {
+            return count == 0;
+        }
+
+        private void clear() {
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package refactoring.switchstatements.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+Generates refactoring.switchstatements.DiscountDispatch from the fields annotated with @DiscountStrategyFor.
+
+The switch statement in DepartmentStore is fast, but every new payment type means editing it.
+The strategies in DepartmentStoreFunctionalRefactor are open for extension, but nothing
+checks that every payment type has one. Here the existing strategy fields are annotated
+with their payment type, and this processor writes a static final table of them, indexed by
+PaymentType.ordinal(), at compile time. Dispatching is one array read, like the jump table
+of a switch, there's no reflection at runtime, and the compiler reports a missing or
+duplicated payment type.
+
+The annotation and enum are looked up by name, so this processor can be compiled
+before the rest of the code, see the maven-compiler-plugin configuration in the pom.
+ */
+@SupportedAnnotationTypes(DiscountDispatchProcessor.ANNOTATION)
+public class DiscountDispatchProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "refactoring.switchstatements";
+    static final String ANNOTATION = PACKAGE + ".DiscountStrategyFor";
+    static final String PAYMENT_TYPE = PACKAGE + ".PaymentType";
+    static final String PAYMENT = PACKAGE + ".Payment";
+    static final String GENERATED_CLASS = "DiscountDispatch";
+
+    // Payment type constant -> strategy field, in the order they were found
+    private final Map<String, VariableElement> strategies = new LinkedHashMap<>();
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (null == annotation || generated) {
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            collect(element, annotation);
+        }
+
+        if (!annotations.isEmpty()) {
+            generate();
+        }
+        return true;
+    }
+
+    private void collect(Element element, TypeElement annotation) {
+        if (element.getKind() != ElementKind.FIELD
+                || !element.getModifiers().containsAll(Set.of(Modifier.STATIC, Modifier.FINAL))) {
+            error(element, "@DiscountStrategyFor can only be used on static final fields");
+            return;
+        }
+
+        VariableElement strategy = (VariableElement) element;
+        if (!isDiscountFunction(strategy)) {
+            error(element, "@DiscountStrategyFor fields must be a Function<Payment, Double>");
+            return;
+        }
+        if (!isVisibleToDispatch(strategy)) {
+            error(element, "@DiscountStrategyFor fields must be visible from package " + PACKAGE);
+            return;
+        }
+
+        String paymentType = paymentTypeOf(strategy, annotation);
+        VariableElement existing = strategies.putIfAbsent(paymentType, strategy);
+        if (null != existing) {
+            error(element, "PaymentType." + paymentType + " already has a discount strategy: " + nameOf(existing));
+        }
+    }
+
+    private void generate() {
+        generated = true;
+
+        TypeElement paymentType = processingEnv.getElementUtils().getTypeElement(PAYMENT_TYPE);
+        List<String> constants = new ArrayList<>();
+        for (Element enclosed : paymentType.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.ENUM_CONSTANT) {
+                constants.add(enclosed.getSimpleName().toString());
+            }
+        }
+
+        boolean complete = true;
+        for (String constant : constants) {
+            if (!strategies.containsKey(constant)) {
+                error(paymentType, "PaymentType." + constant + " has no class annotated with @DiscountStrategyFor");
+                complete = false;
+            }
+        }
+        if (!complete) {
+            return;
+        }
+
+        try {
+            write(constants);
+        } catch (IOException e) {
+            error(paymentType, "Could not write " + GENERATED_CLASS + ": " + e.getMessage());
+        }
+    }
+
+    private void write(List<String> constants) throws IOException {
+        Element[] origins = strategies.values().stream().map(Element::getEnclosingElement).distinct().toArray(Element[]::new);
+        String name = PACKAGE + "." + GENERATED_CLASS;
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(name, origins).openWriter())) {
+            out.println("package " + PACKAGE + ";");
+            out.println();
+            out.println("import java.util.function.Function;");
+            out.println();
+            out.println("/**");
+            out.println(" * Dispatches a payment to the discount strategy of its type.");
+            out.println(" * Generated from the fields annotated with {@link DiscountStrategyFor}, don't edit.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + GENERATED_CLASS + " {");
+            out.println();
+            out.println("    // Indexed by PaymentType.ordinal()");
+            out.println("    private static final Function<Payment, Double>[] STRATEGIES = byOrdinal(");
+            for (int i = 0; i < constants.size(); i++) {
+                String separator = i < constants.size() - 1 ? "," : "";
+                out.println("            " + nameOf(strategies.get(constants.get(i))) + separator + " // " + constants.get(i));
+            }
+            out.println("    );");
+            out.println();
+            out.println("    private " + GENERATED_CLASS + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    public static Double applyDiscount(Payment payment) {");
+            out.println("        return STRATEGIES[payment.getType().ordinal()].apply(payment);");
+            out.println("    }");
+            out.println();
+            out.println("    public static Function<Payment, Double> strategyFor(PaymentType type) {");
+            out.println("        return STRATEGIES[type.ordinal()];");
+            out.println("    }");
+            out.println();
+            out.println("    // Returns the array the compiler creates for the call, so its type is exactly T[]");
+            out.println("    @SafeVarargs");
+            out.println("    @SuppressWarnings(\"varargs\")");
+            out.println("    private static <T> T[] byOrdinal(T... strategies) {");
+            out.println("        return strategies;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private boolean isDiscountFunction(VariableElement strategy) {
+        TypeElement function = processingEnv.getElementUtils().getTypeElement("java.util.function.Function");
+        TypeMirror payment = processingEnv.getElementUtils().getTypeElement(PAYMENT).asType();
+        TypeMirror doubleType = processingEnv.getElementUtils().getTypeElement("java.lang.Double").asType();
+        TypeMirror discountFunction = processingEnv.getTypeUtils().getDeclaredType(function, payment, doubleType);
+
+        return processingEnv.getTypeUtils().isAssignable(strategy.asType(), discountFunction);
+    }
+
+    // The generated class lives in PACKAGE, so it can read package private fields there, and public ones elsewhere
+    private boolean isVisibleToDispatch(VariableElement strategy) {
+        TypeElement owner = (TypeElement) strategy.getEnclosingElement();
+        if (processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().contentEquals(PACKAGE)) {
+            return !strategy.getModifiers().contains(Modifier.PRIVATE) && !owner.getModifiers().contains(Modifier.PRIVATE);
+        }
+        return strategy.getModifiers().contains(Modifier.PUBLIC) && owner.getModifiers().contains(Modifier.PUBLIC);
+    }
+
+    private static String nameOf(VariableElement strategy) {
+        return ((TypeElement) strategy.getEnclosingElement()).getQualifiedName() + "." + strategy.getSimpleName();
+    }
+
+    private String paymentTypeOf(VariableElement strategy, TypeElement annotation) {
+        for (AnnotationMirror mirror : strategy.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().asElement().equals(annotation)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : mirror.getElementValues().entrySet()) {
+                    VariableElement constant = (VariableElement) entry.getValue().getValue();
+                    return constant.getSimpleName().toString();
+                }
+            }
+        }
+        throw new IllegalStateException(strategy + " is missing @DiscountStrategyFor");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,86 @@
+package optionals;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompactDonorTableTest {
+
+    @Test
+    void shouldReturnTheSameDonorThatWasAdded() {
+
+        // Given: A table with donors with and without optional fields
+        CompactDonorTable table = new CompactDonorTable();
+        Successor heir = new Successor("X", "Musk");
+        int elon = table.add(new Donor("Elon", "Musk", true, BigDecimal.TEN, heir));
+        int jane = table.add(new Donor("Jane", "Musk", null, null, null));
+
+        // When: We read them back
+        Donor elonView = table.getDonor(elon);
+        Donor janeView = table.getDonor(jane);
+
+        // Then: Every field is the same
+        assertEquals("Elon", elonView.getFirstName());
+        assertEquals("Musk", elonView.getLastName());
+        assertEquals(true, elonView.getPrimary());
+        assertEquals(BigDecimal.TEN, elonView.getGivingAccountValue());
+        assertEquals(heir, elonView.getSuccessor());
+
+        assertEquals("Jane", janeView.getFirstName());
+        assertNull(janeView.getPrimary());
+        assertNull(janeView.getGivingAccountValue());
+        assertNull(janeView.getSuccessor());
+    }
+
+    @Test
+    void shouldFindSparseValuesAcrossManyRows() {
+
+        // Given: Only every 1000th donor has a successor
+        CompactDonorTable table = new CompactDonorTable();
+        for (int i = 0; i < 100_000; i++) {
+            Successor successor = i % 1000 == 0 ? new Successor("Heir", String.valueOf(i)) : null;
+            table.add(new Donor("First", "Last", i % 2 == 0, null, successor));
+        }
+
+        // Expect: The successors are on the right rows
+        assertEquals(new Successor("Heir", "5000"), table.getSuccessor(5000));
+        assertNull(table.getSuccessor(5001));
+        assertEquals(50_000, table.primaryCount());
+        assertEquals(100_000, table.size());
+    }
+
+    @Test
+    void shouldOnlyStoreValuesThatDifferFromTheDefault() {
+
+        // Given: Donors created with the public constructor, whose value defaults to zero
+        CompactDonorTable table = new CompactDonorTable();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 100 == 7) {
+                table.add(new Donor("First", "Last", true, BigDecimal.valueOf(i), null));
+            } else {
+                table.add(new Donor("First", "Last", true));
+            }
+        }
+
+        // Expect: Defaults and stored values to read back on the right rows
+        assertEquals(BigDecimal.ZERO, table.getGivingAccountValue(0));
+        assertEquals(BigDecimal.valueOf(7), table.getGivingAccountValue(7));
+        assertEquals(BigDecimal.valueOf(9_907), table.getGivingAccountValue(9_907));
+        assertEquals(BigDecimal.ZERO, table.getGivingAccountValue(9_999));
+        assertEquals(100, table.storedGivingAccountValues());
+    }
+
+    @Test
+    void shouldRejectRowsOutOfBounds() {
+
+        // Given: An empty table
+        CompactDonorTable table = new CompactDonorTable();
+
+        // Expect: Reading a row to fail
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> table.getDonor(0));
+    }
+}
@@ -0,0 +1,88 @@
+package optionals;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DefaultValueProviderTest {
+
+    @Test
+    void shouldBuildTheDefaultOncePerKey() {
+
+        // Given: An expensive default successor
+        AtomicInteger builds = new AtomicInteger();
+        DefaultValueProvider<String, Successor> defaultSuccessors = new DefaultValueProvider<>(
+                lastName -> {
+                    builds.incrementAndGet();
+                    return new Successor("Richard", lastName);
+                },
+                Duration.ofMinutes(5)
+        );
+
+        // When: Many donors without a successor fall back to the default
+        Successor first = null;
+        for (int i = 0; i < 1000; i++) {
+            Donor donor = new Donor("Elon", "Musk", true);
+            Successor successor = Optional
+                    .ofNullable(donor.getSuccessor())
+                    .orElseGet(defaultSuccessors.supplierFor(donor.getLastName()));
+
+            if (null == first) {
+                first = successor;
+            }
+            assertSame(first, successor);
+        }
+
+        // Then: It should only have been built once
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void shouldRebuildTheDefaultOnceItExpires() {
+
+        // Given: A provider with a 10 nanosecond TTL and a fake clock
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger builds = new AtomicInteger();
+        DefaultValueProvider<String, Integer> provider = new DefaultValueProvider<>(
+                key -> builds.incrementAndGet(), Duration.ofNanos(10), clock::get
+        );
+
+        // When: We read the value before and after it expires
+        Integer beforeExpiry = provider.get("key");
+        clock.set(9);
+        Integer stillFresh = provider.get("key");
+        clock.set(10);
+        Integer afterExpiry = provider.get("key");
+
+        // Then: It should only have been rebuilt after expiring
+        assertEquals(1, beforeExpiry);
+        assertEquals(1, stillFresh);
+        assertEquals(2, afterExpiry);
+    }
+
+    @Test
+    void shouldEvictExpiredValues() {
+
+        // Given: A provider with two values
+        AtomicLong clock = new AtomicLong();
+        DefaultValueProvider<String, String> provider = new DefaultValueProvider<>(
+                key -> key, Duration.ofNanos(10), clock::get
+        );
+        provider.get("old");
+        clock.set(5);
+        provider.get("new");
+
+        // When: Only the first one has expired
+        clock.set(12);
+        provider.evictExpired();
+
+        // Then: Only the fresh one is kept
+        assertEquals(1, provider.size());
+    }
+}
@@ -0,0 +1,78 @@
+package optionals;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DonorAggregatorTest {
+
+    @Test
+    void shouldMatchASequentialBigDecimalSum() {
+
+        // Given: Enough donors to be split across threads
+        List<Donor> donors = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal value = BigDecimal.valueOf(i, i % 4); // 0 to 3 decimal places
+            donors.add(new Donor("First" + i, "Last" + i, i % 3 == 0, value, null));
+        }
+
+        // When: We aggregate them
+        DonorTotals totals = new DonorAggregator(new ForkJoinPool(4)).aggregate(donors);
+
+        // Then: The totals match the plain reduce
+        BigDecimal expected = donors.stream()
+                .map(Donor::getGivingAccountValue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal expectedPrimary = donors.stream()
+                .filter(Donor::getPrimary)
+                .map(Donor::getGivingAccountValue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertEquals(0, expected.compareTo(totals.getTotal()));
+        assertEquals(0, expectedPrimary.compareTo(totals.getPrimaryTotal()));
+        assertEquals(100_000, totals.getCount());
+        assertEquals(33_334, totals.getPrimaryCount());
+    }
+
+    @Test
+    void shouldStayExactWhenTheCentsOverflow() {
+
+        // Given: Donors whose total doesn't fit in a long of cents
+        BigDecimal huge = BigDecimal.valueOf(Long.MAX_VALUE / 100, 0);
+        List<Donor> donors = List.of(
+                new Donor("A", "Rich", true, huge, null),
+                new Donor("B", "Rich", true, huge, null),
+                new Donor("C", "Rich", true, new BigDecimal("0.01"), null)
+        );
+
+        // When: We aggregate them
+        DonorTotals totals = new DonorAggregator().aggregate(donors);
+
+        // Then: Nothing is lost
+        assertEquals(0, huge.add(huge).add(new BigDecimal("0.01")).compareTo(totals.getTotal()));
+    }
+
+    @Test
+    void shouldAverageEachBucket() {
+
+        // Given: Primary and non-primary donors, one without a value
+        List<Donor> donors = List.of(
+                new Donor("A", "Primary", true, BigDecimal.valueOf(10), null),
+                new Donor("B", "Primary", true, BigDecimal.valueOf(20), null),
+                new Donor("C", "Secondary", false, null, null)
+        );
+
+        // When: We aggregate them
+        DonorTotals totals = new DonorAggregator().aggregate(donors);
+
+        // Then: The averages are per bucket
+        assertEquals(0, BigDecimal.valueOf(15).compareTo(totals.getPrimaryAverage()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(totals.getNonPrimaryAverage()));
+        assertEquals(0, BigDecimal.TEN.compareTo(totals.getAverage()));
+    }
+}
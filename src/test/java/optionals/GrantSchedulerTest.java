@@ -0,0 +1,85 @@
+package optionals;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GrantSchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2020, 6, 1);
+
+    @Test
+    void shouldOnlyReturnGrantsThatAreDue() {
+
+        // Given: Grants scheduled today and tomorrow
+        GrantScheduler scheduler = new GrantScheduler(TODAY);
+        Grant today = grantOn(TODAY);
+        Grant tomorrow = grantOn(TODAY.plusDays(1));
+        scheduler.schedule(tomorrow);
+        scheduler.schedule(today);
+
+        // When: We process today
+        List<Grant> due = scheduler.pollDue(TODAY);
+
+        // Then: Only today's grant is returned
+        assertEquals(List.of(today), due);
+        assertEquals(1, scheduler.scheduledCount());
+    }
+
+    @Test
+    void shouldCatchUpOnSkippedDays() {
+
+        // Given: Grants over a few days
+        GrantScheduler scheduler = new GrantScheduler(TODAY);
+        Grant first = grantOn(TODAY);
+        Grant second = grantOn(TODAY.plusDays(2));
+        scheduler.schedule(second);
+        scheduler.schedule(first);
+
+        // When: We don't poll until 3 days later
+        List<Grant> due = scheduler.pollDue(TODAY.plusDays(3));
+
+        // Then: Everything is returned in day order
+        assertEquals(List.of(first, second), due);
+        assertEquals(0, scheduler.scheduledCount());
+    }
+
+    @Test
+    void shouldMakeLateGrantsDueOnTheNextPoll() {
+
+        // Given: Today was already processed
+        GrantScheduler scheduler = new GrantScheduler(TODAY);
+        scheduler.pollDue(TODAY);
+
+        // When: A grant for yesterday shows up
+        Grant late = grantOn(TODAY.minusDays(1));
+        scheduler.schedule(late);
+
+        // Then: It's picked up tomorrow
+        assertEquals(List.of(late), scheduler.pollDue(TODAY.plusDays(1)));
+    }
+
+    @Test
+    void shouldKeepUnscheduledGrantsInTheirOwnLane() {
+
+        // Given: A grant without a schedule date
+        GrantScheduler scheduler = new GrantScheduler(TODAY);
+        Grant unscheduled = new Grant(BigDecimal.ONE, Optional.empty());
+        scheduler.schedule(unscheduled);
+
+        // Expect: It's never returned as due, only from the unscheduled lane
+        assertTrue(scheduler.pollDue(TODAY.plusYears(1)).isEmpty());
+        assertEquals(List.of(unscheduled), scheduler.pollUnscheduled(10));
+        assertEquals(0, scheduler.unscheduledCount());
+    }
+
+    private Grant grantOn(LocalDate date) {
+        return new Grant(BigDecimal.TEN, Optional.of(date));
+    }
+}
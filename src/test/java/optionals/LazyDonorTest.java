@@ -0,0 +1,148 @@
+package optionals;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyDonorTest {
+
+    @Test
+    void shouldNotLoadDetailsUntilTheyAreRead() {
+
+        // Given: A batch of donors
+        List<List<LazyDonor>> calls = new ArrayList<>();
+        LazyDonorBatch batch = new LazyDonorBatch(recordingLoader(calls));
+        LazyDonor elon = batch.donor("Elon", "Musk", true);
+
+        // When: We only read their names
+        String name = elon.getFirstName();
+
+        // Then: The loader should never be called
+        assertEquals("Elon", name);
+        assertFalse(elon.isLoaded());
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void shouldLoadUntouchedDonorsInTheSameBatch() {
+
+        // Given: A batch of donors
+        List<List<LazyDonor>> calls = new ArrayList<>();
+        LazyDonorBatch batch = new LazyDonorBatch(recordingLoader(calls));
+        LazyDonor elon = batch.donor("Elon", "Musk", true);
+        LazyDonor jeff = batch.donor("Jeff", "Bezos", false);
+
+        // When: We read the details of both donors
+        BigDecimal elonValue = elon.getGivingAccountValue();
+        Successor jeffSuccessor = jeff.getSuccessor();
+
+        // Then: Both donors should be loaded in one call
+        assertEquals(1, calls.size());
+        assertEquals(BigDecimal.TEN, elonValue);
+        assertEquals(new Successor("Jeff", "Junior"), jeffSuccessor);
+    }
+
+    @Test
+    void shouldRespectTheMaxBatchSize() {
+
+        // Given: A batch that loads at most 2 donors at a time
+        List<List<LazyDonor>> calls = new ArrayList<>();
+        LazyDonorBatch batch = new LazyDonorBatch(recordingLoader(calls), 2);
+        LazyDonor first = batch.donor("A", "One", true);
+        batch.donor("B", "Two", true);
+        LazyDonor third = batch.donor("C", "Three", true);
+
+        // When: We read the first and the third donor
+        first.getSuccessor();
+        third.getSuccessor();
+
+        // Then: There should be one call per batch
+        assertEquals(2, calls.size());
+        assertEquals(2, calls.get(0).size());
+        assertEquals(1, calls.get(1).size());
+    }
+
+    @Test
+    void shouldDefaultMissingDetailsLikeDonor() {
+
+        // Given: A loader that doesn't know about the donor
+        LazyDonorBatch batch = new LazyDonorBatch(donors -> new HashMap<>());
+        LazyDonor unknown = batch.donor("Jane", "Doe", false);
+
+        // Expect: The same defaults as a regular Donor
+        assertEquals(BigDecimal.ZERO, unknown.getGivingAccountValue());
+        assertNull(unknown.getSuccessor());
+    }
+
+    @Test
+    void shouldLoadALargeListingInOnePass() {
+
+        // Given: A listing of 200,000 donors
+        List<List<LazyDonor>> calls = new ArrayList<>();
+        LazyDonorBatch batch = new LazyDonorBatch(recordingLoader(calls), 100);
+        List<LazyDonor> donors = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            donors.add(batch.donor("Donor", String.valueOf(i), false));
+        }
+
+        // When: Every donor's details are read in listing order
+        for (LazyDonor donor : donors) {
+            donor.getGivingAccountValue();
+        }
+
+        // Then: Each donor was loaded once, in full batches
+        assertEquals(2_000, calls.size());
+        for (List<LazyDonor> call : calls) {
+            assertEquals(100, call.size());
+        }
+    }
+
+    @Test
+    void shouldRetryDonorsWhoseLoadFailed() {
+
+        // Given: A loader that fails the first time
+        List<List<LazyDonor>> calls = new ArrayList<>();
+        DonorDetailsLoader working = recordingLoader(calls);
+        boolean[] failed = {false};
+        LazyDonorBatch batch = new LazyDonorBatch(donors -> {
+            if (!failed[0]) {
+                failed[0] = true;
+                throw new IllegalStateException("Database is down");
+            }
+            return working.loadAll(donors);
+        });
+        LazyDonor elon = batch.donor("Elon", "Musk", true);
+        LazyDonor jeff = batch.donor("Jeff", "Bezos", false);
+
+        // When: The first read fails and a later one succeeds
+        Assertions.assertThrows(IllegalStateException.class, elon::getSuccessor);
+        Successor jeffSuccessor = jeff.getSuccessor();
+
+        // Then: Both donors are loaded by the retry
+        assertEquals(new Successor("Jeff", "Junior"), jeffSuccessor);
+        assertTrue(elon.isLoaded());
+        assertEquals(1, calls.size());
+    }
+
+    private DonorDetailsLoader recordingLoader(List<List<LazyDonor>> calls) {
+        return donors -> {
+            calls.add(new ArrayList<>(donors));
+
+            Map<LazyDonor, DonorDetails> details = new HashMap<>();
+            for (LazyDonor donor : donors) {
+                details.put(donor, new DonorDetails(BigDecimal.TEN, new Successor(donor.getFirstName(), "Junior")));
+            }
+            return details;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmployeeRosterTest {
+
+    @Test
+    void shouldCountEmployeesByStatus() {
+
+        // Given: A roster with every kind of employee
+        EmployeeRoster roster = createRoster();
+
+        // Expect: The counts per status
+        assertEquals(5, roster.size());
+        assertEquals(1, roster.countRetired());
+        assertEquals(1, roster.countTerminated());
+        assertEquals(1, roster.countDeceased());
+        assertEquals(1, roster.countResigned());
+        assertEquals(4, roster.count(EmployeeStatus.ALIVE, 0));
+    }
+
+    @Test
+    void shouldReturnTheSameEmployeesThatWereAdded() {
+
+        // Given: A roster
+        EmployeeRoster roster = createRoster();
+
+        // When: We read back an employee
+        Employee claire = roster.getEmployee(2);
+
+        // Then: Every field is the same
+        assertEquals(3333L, claire.getId());
+        assertEquals("Claire", claire.getName());
+        assertEquals(Employee.createTerminatedEmployee(3333L, "Claire").getStatus(), claire.getStatus());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> roster.getName(5));
+    }
+
+    @Test
+    void shouldFeedThePayrollRun() {
+
+        // Given: A roster
+        EmployeeRoster roster = createRoster();
+
+        // When: We run payroll over it
+        PayrollResult result = new PayrollRun().run(roster);
+
+        // Then: Everyone is paid like the payment service would
+        PaymentServiceRefactor paymentService = new PaymentServiceRefactor();
+        for (int row = 0; row < roster.size(); row++) {
+            assertEquals(paymentService.payEmployee(roster.getEmployee(row)), result.getPayout(row));
+        }
+        assertEquals(BigDecimal.valueOf(13500), result.getGrandTotal());
+    }
+
+    private EmployeeRoster createRoster() {
+        EmployeeRoster roster = new EmployeeRoster();
+        roster.add(Employee.createWorkingEmployee(1111L, "Angela"));
+        roster.add(Employee.createRetiredEmployee(2222L, "Bob"));
+        roster.add(Employee.createTerminatedEmployee(3333L, "Claire"));
+        roster.add(Employee.createDeadEmployee(4444L, "Dale"));
+        roster.add(Employee.createResignedEmployee(5555L, "Earl"));
+        return roster;
+    }
+}
@@ -0,0 +1,44 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmployeeStatusTest {
+
+    @Test
+    void shouldKeepEveryFlagOfTheFactoryEmployees() {
+
+        // Given: A retired employee
+        final Employee employee = Employee.createRetiredEmployee(1234L, "Angela");
+
+        // Expect: The flags to survive being packed
+        assertTrue(employee.isAlive());
+        assertFalse(employee.isEmployed());
+        assertFalse(employee.isTerminated());
+        assertTrue(employee.isRetired());
+        assertEquals(EmployeeStatus.ALIVE | EmployeeStatus.RETIRED, employee.getStatus());
+    }
+
+    @Test
+    void shouldClassifyLikeTheGuardClauses() {
+
+        // Given: Every kind of employee the factories can create
+        Employee[] employees = {
+                Employee.createWorkingEmployee(1L, "Angela"),
+                Employee.createRetiredEmployee(2L, "Bob"),
+                Employee.createTerminatedEmployee(3L, "Claire"),
+                Employee.createDeadEmployee(4L, "Dale"),
+                Employee.createResignedEmployee(5L, "Earl")
+        };
+
+        // Expect: The table lookup to pay the same as both payment services
+        for (Employee employee : employees) {
+            PayoutCategory category = EmployeeStatus.payoutCategory(employee.getStatus());
+            assertEquals(new PaymentService().payEmployee(employee), category.getAmount());
+            assertEquals(new PaymentServiceRefactor().payEmployee(employee), category.getAmount());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package refactoring.guardclauses;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Is the guard clause version of the payment service faster than the nested conditionals,
+or just easier to read? And how do both compare with looking the payout up in a table?
+
+Both versions branch on the employee's status, so how fast they are depends on how well
+the CPU predicts those branches. Each distribution is measured with the roster shuffled,
+where the next status is a guess, and sorted by status, where the branches are almost
+always predicted. The employees are created in roster order either way, so sorting
+doesn't also change the memory layout. The table lookups don't branch on the status,
+so they should barely notice the order.
+
+Run the main() method from your IDE, see the README for running it from the command line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuardClauseBenchmark {
+
+    /*
+    REALISTIC: 95% working, 2% resigned, 1.5% retired, 1% terminated and 0.5% deceased
+    UNIFORM: 20% of each, the worst case for branch prediction
+     */
+    @Param({"REALISTIC", "UNIFORM"})
+    private String distribution;
+
+    @Param({"SHUFFLED", "SORTED"})
+    private String order;
+
+    @Param({"100000"})
+    private int size;
+
+    private List<Employee> roster;
+
+    private final PaymentService paymentService = new PaymentService();
+    private final PaymentServiceRefactor paymentServiceRefactor = new PaymentServiceRefactor();
+    private final PolicyPaymentService policyPaymentService = new PolicyPaymentService();
+
+    @Setup
+    public void setUp() {
+        // Per mille of working, resigned, retired, terminated and deceased employees
+        int[] perMille = "UNIFORM".equals(distribution)
+                ? new int[]{200, 200, 200, 200, 200}
+                : new int[]{950, 20, 15, 10, 5};
+
+        Random random = new Random(42);
+        int[] kinds = new int[size];
+        for (int i = 0; i < size; i++) {
+            int draw = random.nextInt(1000);
+            int kind = 0;
+            while (draw >= perMille[kind]) {
+                draw -= perMille[kind];
+                kind++;
+            }
+            kinds[i] = kind;
+        }
+
+        if ("SORTED".equals(order)) {
+            Arrays.sort(kinds);
+        }
+
+        roster = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            roster.add(createEmployee(i, kinds[i]));
+        }
+    }
+
+    @Benchmark
+    public void nestedConditionals(Blackhole blackhole) {
+        for (Employee employee : roster) {
+            blackhole.consume(paymentService.payEmployee(employee));
+        }
+    }
+
+    @Benchmark
+    public void guardClauses(Blackhole blackhole) {
+        for (Employee employee : roster) {
+            blackhole.consume(paymentServiceRefactor.payEmployee(employee));
+        }
+    }
+
+    @Benchmark
+    public void statusTable(Blackhole blackhole) {
+        for (Employee employee : roster) {
+            blackhole.consume(PayoutCategory.of(employee).getAmount());
+        }
+    }
+
+    @Benchmark
+    public void policyTable(Blackhole blackhole) {
+        PayoutPolicy policy = policyPaymentService.getPolicy();
+        for (Employee employee : roster) {
+            blackhole.consume(policy.payout(employee.getStatus()));
+        }
+    }
+
+    private static Employee createEmployee(long id, int kind) {
+        switch (kind) {
+            case 0:
+                return Employee.createWorkingEmployee(id, "Working");
+            case 1:
+                return Employee.createResignedEmployee(id, "Resigned");
+            case 2:
+                return Employee.createRetiredEmployee(id, "Retired");
+            case 3:
+                return Employee.createTerminatedEmployee(id, "Terminated");
+            default:
+                return Employee.createDeadEmployee(id, "Dead");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GuardClauseBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,127 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalPayrollTest {
+
+    @Test
+    void shouldOnlyUpdateTheEmployeesThatChanged() {
+
+        // Given: Last month's payroll of 10,000 working employees
+        List<Employee> roster = new ArrayList<>();
+        for (long id = 0; id < 10_000; id++) {
+            roster.add(Employee.createWorkingEmployee(id, "Working"));
+        }
+        IncrementalPayroll payroll = new IncrementalPayroll();
+        assertEquals(10_000, payroll.applyAll(roster));
+
+        // When: This month, one retires, one is terminated, and one is unchanged
+        int changed = payroll.applyAll(List.of(
+                Employee.createRetiredEmployee(1L, "Working"),
+                Employee.createTerminatedEmployee(2L, "Working"),
+                Employee.createWorkingEmployee(3L, "Working")
+        ));
+
+        // Then: Only the two changes moved the totals
+        assertEquals(2, changed);
+        assertEquals(10_000, payroll.size());
+        assertEquals(9_998, payroll.getCount(PayoutCategory.STANDARD));
+        assertEquals(1, payroll.getCount(PayoutCategory.BUY_OUT));
+        assertEquals(1, payroll.getCount(PayoutCategory.SEVERANCE));
+        assertEquals(PayoutCategory.BUY_OUT, payroll.getCategory(1L));
+        assertEquals(BigDecimal.valueOf(1500), payroll.getPayout(2L));
+        assertNull(payroll.getPayout(10_000L));
+    }
+
+    @Test
+    void shouldPayTheAmountsOfThePolicy() {
+
+        // Given: A payroll with a bigger buy out
+        Properties properties = new Properties();
+        properties.setProperty("BUY_OUT", "20000");
+        IncrementalPayroll payroll = new IncrementalPayroll(PayoutPolicy.fromProperties(properties));
+
+        // When: A retiree and a working employee are applied
+        payroll.applyAll(List.of(
+                Employee.createRetiredEmployee(1L, "Angela"),
+                Employee.createWorkingEmployee(2L, "Bob")
+        ));
+
+        // Then: The payouts and totals follow the policy
+        assertEquals(BigDecimal.valueOf(20000), payroll.getPayout(1L));
+        assertEquals(BigDecimal.valueOf(21000), payroll.getGrandTotal());
+    }
+
+    @Test
+    void shouldMatchAFullRunAfterManyChanges() {
+
+        // Given: A payroll kept up to date by change feeds
+        IncrementalPayroll payroll = new IncrementalPayroll();
+        List<Employee> current = new ArrayList<>();
+        for (long id = 0; id < 5_000; id++) {
+            current.add(Employee.createWorkingEmployee(id, "Working"));
+        }
+        payroll.applyAll(current);
+
+        // When: Every month a different slice of the roster changes status
+        for (int month = 1; month <= 12; month++) {
+            List<Employee> changes = new ArrayList<>();
+            for (int id = month; id < current.size(); id += 7 * month) {
+                Employee changedEmployee = month % 3 == 0
+                        ? Employee.createDeadEmployee(id, "Changed")
+                        : month % 3 == 1 ? Employee.createRetiredEmployee(id, "Changed")
+                        : Employee.createWorkingEmployee(id, "Changed");
+                current.set(id, changedEmployee);
+                changes.add(changedEmployee);
+            }
+            payroll.applyAll(changes);
+        }
+
+        // Then: The totals are the same as running the whole roster
+        PayrollResult fullRun = new PayrollRun().run(current);
+        for (PayoutCategory category : PayoutCategory.values()) {
+            assertEquals(fullRun.getCount(category), payroll.getCount(category));
+        }
+        assertEquals(fullRun.getGrandTotal(), payroll.getGrandTotal());
+    }
+
+    @Test
+    void shouldRemoveEmployeesWhoLeave() {
+
+        // Given: A payroll of 1,000 employees
+        IncrementalPayroll payroll = new IncrementalPayroll();
+        for (long id = 0; id < 1_000; id++) {
+            payroll.apply(id % 2 == 0
+                    ? Employee.createWorkingEmployee(id, "Working")
+                    : Employee.createRetiredEmployee(id, "Retired"));
+        }
+
+        // When: Every third employee leaves
+        for (long id = 0; id < 1_000; id += 3) {
+            assertTrue(payroll.remove(id));
+        }
+
+        // Then: They are off the totals, and everyone else can still be found
+        assertFalse(payroll.remove(0L));
+        assertEquals(666, payroll.size());
+        assertEquals(333, payroll.getCount(PayoutCategory.STANDARD));
+        assertEquals(333, payroll.getCount(PayoutCategory.BUY_OUT));
+        for (long id = 0; id < 1_000; id++) {
+            if (id % 3 == 0) {
+                assertNull(payroll.getCategory(id));
+            } else {
+                assertEquals(id % 2 == 0 ? PayoutCategory.STANDARD : PayoutCategory.BUY_OUT, payroll.getCategory(id));
+            }
+        }
+    }
+}
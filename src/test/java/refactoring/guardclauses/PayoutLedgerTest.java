@@ -0,0 +1,96 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayoutLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldOnlyPayEachEmployeeOnce() {
+
+        // Given: An empty ledger
+        PayoutLedger ledger = new PayoutLedger();
+
+        // When: The same employee is paid twice
+        boolean first = ledger.recordOnce(1234L, BigDecimal.valueOf(1000));
+        boolean second = ledger.recordOnce(1234L, BigDecimal.valueOf(1000));
+
+        // Then: Only the first payout counts
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(ledger.getPayout(1234L)));
+        assertNull(ledger.getPayout(9999L));
+    }
+
+    @Test
+    void shouldPayEveryoneExactlyOnceFromConcurrentWriters() throws InterruptedException {
+
+        // Given: 4 threads paying the same 20,000 employees
+        PayoutLedger ledger = new PayoutLedger();
+        PaymentServiceRefactor paymentService = new PaymentServiceRefactor();
+        AtomicInteger paid = new AtomicInteger();
+
+        // When: They all run at once
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (long id = 0; id < 20_000; id++) {
+                    if (ledger.payOnce(Employee.createWorkingEmployee(id, "Worker"), paymentService)) {
+                        paid.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then: Every employee was paid exactly once
+        assertEquals(20_000, paid.get());
+        assertEquals(20_000, ledger.size());
+    }
+
+    @Test
+    void shouldResumeFromTheLastCheckpoint() throws IOException {
+
+        // Given: A run that crashed after paying half the roster
+        Path checkpoint = directory.resolve("payouts.ledger");
+        PaymentServiceRefactor paymentService = new PaymentServiceRefactor();
+        PayoutLedger crashedRun = PayoutLedger.restore(checkpoint);
+        for (long id = 0; id < 500; id++) {
+            crashedRun.payOnce(Employee.createRetiredEmployee(id, "Retiree"), paymentService);
+        }
+        crashedRun.checkpoint(checkpoint);
+
+        // When: The run is restarted over the whole roster
+        PayoutLedger retriedRun = PayoutLedger.restore(checkpoint);
+        int paid = 0;
+        for (long id = 0; id < 1000; id++) {
+            if (retriedRun.payOnce(Employee.createRetiredEmployee(id, "Retiree"), paymentService)) {
+                paid++;
+            }
+        }
+
+        // Then: Only the employees that weren't paid yet are paid
+        assertEquals(500, paid);
+        assertEquals(1000, retriedRun.size());
+        assertEquals(0, BigDecimal.valueOf(10000).compareTo(retriedRun.getPayout(42L)));
+    }
+}
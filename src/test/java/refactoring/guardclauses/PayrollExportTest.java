@@ -0,0 +1,139 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PayrollExportTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldPayEveryEmployeeOfTheExport() throws IOException {
+
+        // Given: An export with every kind of employee, a name with a comma, and no new line at the end
+        Path employees = directory.resolve("employees.csv");
+        Files.write(employees, ("1,Angela,true,true,false,false\n" +
+                "2,\"Bob, Jr.\",true,false,false,true\r\n" +
+                "3,Claire,true,false,true,false\n" +
+                "\n" +
+                "4,Dale,false,false,false,false\n" +
+                "5,Earl,true,false,false,false").getBytes(StandardCharsets.UTF_8));
+        Path payouts = directory.resolve("payouts.csv");
+
+        // When: The payroll is exported
+        long paid = new PayrollExport().export(employees, payouts);
+
+        // Then: Every employee was paid by the payment service
+        assertEquals(5, paid);
+        assertEquals(Arrays.asList("1,1000", "2,10000", "3,1500", "4,0", "5,1000"),
+                Files.readAllLines(payouts));
+    }
+
+    @Test
+    void shouldStreamThroughBuffersSmallerThanTheFile() throws IOException {
+
+        // Given: An export much larger than the buffers
+        Path employees = directory.resolve("employees.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(employees)) {
+            for (int id = 0; id < 10_000; id++) {
+                writer.write(id + ",Employee " + id + ",true," + (id % 2 == 0) + ",false," + (id % 2 != 0) + "\n");
+            }
+        }
+        Path payouts = directory.resolve("payouts.csv");
+
+        // When: The payroll is exported through 100 byte buffers
+        PayrollExport export = new PayrollExport(new PaymentServiceRefactor()::payEmployee, 100);
+        long paid = export.export(employees, payouts);
+
+        // Then: No line was lost at the buffer boundaries
+        List<String> lines = Files.readAllLines(payouts);
+        assertEquals(10_000, paid);
+        assertEquals(10_000, lines.size());
+        for (int id = 0; id < 10_000; id++) {
+            BigDecimal expected = id % 2 == 0 ? BigDecimal.valueOf(1000) : BigDecimal.valueOf(10000);
+            assertEquals(id + "," + expected, lines.get(id));
+        }
+    }
+
+    @Test
+    void shouldRejectAMalformedLine() throws IOException {
+
+        // Given: An export where the second line is missing its flags
+        Path employees = directory.resolve("employees.csv");
+        Files.write(employees, "1,Angela,true,true,false,false\n2,Bob\n".getBytes(StandardCharsets.UTF_8));
+
+        // Expect: The export to fail on that line
+        IOException exception = Assertions.assertThrows(IOException.class,
+                () -> new PayrollExport().export(employees, directory.resolve("payouts.csv")));
+        assertEquals("Malformed employee record on line 2", exception.getMessage());
+    }
+
+    @Test
+    void shouldAcceptTheLargestId() throws IOException {
+
+        // Given: An export with the largest id a long can hold
+        Path employees = directory.resolve("employees.csv");
+        Path payouts = directory.resolve("payouts.csv");
+        Files.write(employees, (Long.MAX_VALUE + ",Angela,true,true,false,false\n").getBytes(StandardCharsets.UTF_8));
+
+        // When: The export is paid
+        new PayrollExport().export(employees, payouts);
+
+        // Then: The 19 digit id was kept as is
+        assertEquals(List.of(Long.MAX_VALUE + ",1000"), Files.readAllLines(payouts));
+    }
+
+    @Test
+    void shouldRejectAnIdThatDoesNotFitInALong() throws IOException {
+
+        // Given: An export with an id one past the largest long
+        Path employees = directory.resolve("employees.csv");
+        Files.write(employees, "9223372036854775808,Angela,true,true,false,false\n".getBytes(StandardCharsets.UTF_8));
+
+        // Expect: The export to fail instead of overflowing the id
+        IOException exception = Assertions.assertThrows(IOException.class,
+                () -> new PayrollExport().export(employees, directory.resolve("payouts.csv")));
+        assertEquals("Malformed employee record on line 1", exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectAFlagThatIsNeitherTrueNorFalse() throws IOException {
+
+        // Given: An export where a flag is corrupt
+        Path employees = directory.resolve("employees.csv");
+        Files.write(employees, ("1,Angela,true,true,false,false\n" +
+                "2,Bob,true,true,tru,false\n").getBytes(StandardCharsets.UTF_8));
+
+        // Expect: The export to fail instead of guessing
+        IOException exception = Assertions.assertThrows(IOException.class,
+                () -> new PayrollExport().export(employees, directory.resolve("payouts.csv")));
+        assertEquals("Malformed employee record on line 2", exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectALineLongerThanTheBuffer() throws IOException {
+
+        // Given: An export with a name longer than the buffer
+        Path employees = directory.resolve("employees.csv");
+        char[] name = new char[200];
+        Arrays.fill(name, 'a');
+        Files.write(employees, ("1," + new String(name) + ",true,true,false,false\n").getBytes(StandardCharsets.UTF_8));
+
+        // Expect: The export to fail instead of growing the buffer
+        PayrollExport export = new PayrollExport(new PaymentServiceRefactor()::payEmployee, 100);
+        Assertions.assertThrows(IOException.class, () -> export.export(employees, directory.resolve("payouts.csv")));
+    }
+}
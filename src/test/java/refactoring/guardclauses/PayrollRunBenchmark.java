@@ -0,0 +1,92 @@
+package refactoring.guardclauses;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Compares paying a roster one employee at a time with the payment services
+against a PayrollRun over the whole roster.
+
+Run the main() method from your IDE, see the README for running it from the command line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayrollRunBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    private List<Employee> roster;
+
+    private final PaymentService paymentService = new PaymentService();
+    private final PaymentServiceRefactor paymentServiceRefactor = new PaymentServiceRefactor();
+    private final PayrollRun payrollRun = new PayrollRun();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        roster = new ArrayList<>(size);
+        for (long id = 0; id < size; id++) {
+            int kind = random.nextInt(100);
+            if (kind < 90) {
+                roster.add(Employee.createWorkingEmployee(id, "Working"));
+            } else if (kind < 94) {
+                roster.add(Employee.createResignedEmployee(id, "Resigned"));
+            } else if (kind < 97) {
+                roster.add(Employee.createRetiredEmployee(id, "Retired"));
+            } else if (kind < 99) {
+                roster.add(Employee.createTerminatedEmployee(id, "Terminated"));
+            } else {
+                roster.add(Employee.createDeadEmployee(id, "Dead"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void paymentService(Blackhole blackhole) {
+        for (Employee employee : roster) {
+            blackhole.consume(paymentService.payEmployee(employee));
+        }
+    }
+
+    @Benchmark
+    public void paymentServiceRefactor(Blackhole blackhole) {
+        for (Employee employee : roster) {
+            blackhole.consume(paymentServiceRefactor.payEmployee(employee));
+        }
+    }
+
+    @Benchmark
+    public PayrollResult payrollRun() {
+        return payrollRun.run(roster);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PayrollRunBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,138 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PayrollRunTest {
+
+    @Test
+    void shouldPayEveryoneLikeThePaymentService() {
+
+        // Given: A large roster with every kind of employee
+        List<Employee> roster = new ArrayList<>();
+        for (long id = 0; id < 50_000; id++) {
+            roster.add(createEmployee(id));
+        }
+
+        // When: We run payroll
+        PayrollResult result = new PayrollRun(new ForkJoinPool(4)).run(roster);
+
+        // Then: Each payout matches the payment service
+        PaymentServiceRefactor paymentService = new PaymentServiceRefactor();
+        BigDecimal expectedTotal = BigDecimal.ZERO;
+        for (int i = 0; i < roster.size(); i++) {
+            BigDecimal expected = paymentService.payEmployee(roster.get(i));
+            assertEquals(expected, result.getPayout(i));
+            expectedTotal = expectedTotal.add(expected);
+        }
+        assertEquals(expectedTotal, result.getGrandTotal());
+    }
+
+    @Test
+    void shouldTotalEachCategory() {
+
+        // Given: A small roster
+        List<Employee> roster = List.of(
+                Employee.createWorkingEmployee(1L, "Angela"),
+                Employee.createResignedEmployee(2L, "Bob"),
+                Employee.createTerminatedEmployee(3L, "Claire"),
+                Employee.createRetiredEmployee(4L, "Dale"),
+                Employee.createDeadEmployee(5L, "Earl")
+        );
+
+        // When: We run payroll
+        PayrollResult result = new PayrollRun().run(roster);
+
+        // Then: The totals are grouped by category
+        assertEquals(2, result.getCount(PayoutCategory.STANDARD));
+        assertEquals(BigDecimal.valueOf(2000), result.getTotal(PayoutCategory.STANDARD));
+        assertEquals(BigDecimal.valueOf(1500), result.getTotal(PayoutCategory.SEVERANCE));
+        assertEquals(BigDecimal.valueOf(10000), result.getTotal(PayoutCategory.BUY_OUT));
+        assertEquals(1, result.getCount(PayoutCategory.ZERO));
+        assertSame(result.getPayout(0), result.getPayout(1));
+    }
+
+    @Test
+    void shouldPayTheAmountsOfThePolicy() {
+
+        // Given: A policy with a bigger severance
+        Properties properties = new Properties();
+        properties.setProperty("SEVERANCE", "2500");
+        PayrollRun payrollRun = new PayrollRun(ForkJoinPool.commonPool(), PayoutPolicy.fromProperties(properties));
+        List<Employee> roster = List.of(
+                Employee.createWorkingEmployee(1L, "Angela"),
+                Employee.createTerminatedEmployee(2L, "Bob"),
+                Employee.createTerminatedEmployee(3L, "Claire")
+        );
+
+        // When: We run payroll
+        PayrollResult result = payrollRun.run(roster);
+
+        // Then: The payouts and totals follow the policy
+        assertEquals(BigDecimal.valueOf(2500), result.getPayout(1));
+        assertEquals(BigDecimal.valueOf(5000), result.getTotal(PayoutCategory.SEVERANCE));
+        assertEquals(BigDecimal.valueOf(6000), result.getGrandTotal());
+    }
+
+    @Test
+    void shouldReportMissingEmployeesWithoutThrowing() {
+
+        // Given: A large roster where every 100th row is missing
+        List<Employee> roster = new ArrayList<>();
+        for (long id = 0; id < 50_000; id++) {
+            roster.add(id % 100 == 0 ? null : createEmployee(id));
+        }
+
+        // When: We run payroll skipping the invalid rows
+        PayrollResult result = new PayrollRun(new ForkJoinPool(4)).runSkippingInvalid(roster);
+
+        // Then: The missing rows are reported as errors, and everyone else is paid
+        assertEquals(500, result.getErrorCount());
+        assertEquals(500, result.getErrorCount(PayrollError.MISSING_EMPLOYEE));
+        int[] invalidRows = result.getInvalidRows();
+        for (int i = 0; i < invalidRows.length; i++) {
+            assertEquals(i * 100, invalidRows[i]);
+        }
+        assertEquals(PayrollError.MISSING_EMPLOYEE, result.getError(0));
+        assertNull(result.getPayout(0));
+        assertNull(result.getError(1));
+        assertEquals(new PaymentServiceRefactor().payEmployee(roster.get(1)), result.getPayout(1));
+    }
+
+    @Test
+    void shouldStillFailFastOnMissingEmployees() {
+
+        // Given: A roster with a missing employee
+        List<Employee> roster = new ArrayList<>();
+        roster.add(Employee.createWorkingEmployee(1L, "Angela"));
+        roster.add(null);
+
+        // Expect: A normal run to fail like the payment service
+        Assertions.assertThrows(RuntimeException.class, () -> new PayrollRun().run(roster));
+    }
+
+    private static Employee createEmployee(long id) {
+        switch ((int) (id % 5)) {
+            case 0:
+                return Employee.createWorkingEmployee(id, "Working");
+            case 1:
+                return Employee.createResignedEmployee(id, "Resigned");
+            case 2:
+                return Employee.createTerminatedEmployee(id, "Terminated");
+            case 3:
+                return Employee.createRetiredEmployee(id, "Retired");
+            default:
+                return Employee.createDeadEmployee(id, "Dead");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayrollTracerTest {
+
+    @Test
+    void shouldCountEachGuardClause() {
+
+        // Given: A traced payment service with tracing on
+        PayrollTracer tracer = new PayrollTracer();
+        TracedPaymentService paymentService = new TracedPaymentService(new PaymentServiceRefactor(), tracer);
+        tracer.enable();
+
+        // When: Every kind of employee is paid
+        paymentService.payEmployee(Employee.createWorkingEmployee(1L, "Angela"));
+        paymentService.payEmployee(Employee.createResignedEmployee(2L, "Bob"));
+        paymentService.payEmployee(Employee.createRetiredEmployee(3L, "Claire"));
+        paymentService.payEmployee(Employee.createTerminatedEmployee(4L, "Dale"));
+        paymentService.payEmployee(Employee.createDeadEmployee(5L, "Earl"));
+        Assertions.assertThrows(RuntimeException.class, () -> paymentService.payEmployee(null));
+
+        // Then: Each guard clause is counted
+        PayrollTracer.Snapshot snapshot = tracer.snapshot();
+        assertEquals(2, snapshot.getCount(PayrollTracer.Branch.STANDARD));
+        assertEquals(1, snapshot.getCount(PayrollTracer.Branch.RETIRED));
+        assertEquals(1, snapshot.getCount(PayrollTracer.Branch.TERMINATED));
+        assertEquals(1, snapshot.getCount(PayrollTracer.Branch.DECEASED));
+        assertEquals(1, snapshot.getCount(PayrollTracer.Branch.NULL_EMPLOYEE));
+        assertTrue(snapshot.getLatencyPercentile(PayrollTracer.Branch.STANDARD, 50) > 0);
+    }
+
+    @Test
+    void shouldPickTheFirstGuardClauseThatFires() {
+
+        // Given: Employees whose status matches more than one guard clause
+        Employee deadRetiree = Employee.fromStatus(1L, "Angela",
+                EmployeeStatus.RETIRED | EmployeeStatus.TERMINATED);
+        Employee terminatedRetiree = Employee.fromStatus(2L, "Bob",
+                EmployeeStatus.ALIVE | EmployeeStatus.RETIRED | EmployeeStatus.TERMINATED);
+
+        // Expect: The branch of the clause checked first, like the payment service
+        assertEquals(PayrollTracer.Branch.DECEASED, PayrollTracer.Branch.of(deadRetiree));
+        assertEquals(PayrollTracer.Branch.RETIRED, PayrollTracer.Branch.of(terminatedRetiree));
+        assertEquals(PayrollTracer.Branch.NULL_EMPLOYEE, PayrollTracer.Branch.of(null));
+    }
+
+    @Test
+    void shouldNotRecordAnythingWhileDisabled() {
+
+        // Given: A traced payment service with tracing off
+        PayrollTracer tracer = new PayrollTracer();
+        TracedPaymentService paymentService = new TracedPaymentService(new PaymentServiceRefactor(), tracer);
+
+        // When: An employee is paid
+        paymentService.payEmployee(Employee.createWorkingEmployee(1L, "Angela"));
+
+        // Then: Nothing was recorded
+        assertEquals(0, tracer.snapshot().getCount(PayrollTracer.Branch.STANDARD));
+    }
+
+    @Test
+    void shouldAddUpTheCountsOfEveryThread() throws InterruptedException {
+
+        // Given: 4 threads paying through the same tracer
+        PayrollTracer tracer = new PayrollTracer();
+        TracedPaymentService paymentService = new TracedPaymentService(new PaymentServiceRefactor(), tracer);
+        tracer.enable();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (long id = 0; id < 1000; id++) {
+                    paymentService.payEmployee(Employee.createWorkingEmployee(id, "Worker"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Expect: The snapshot to include every thread
+        assertEquals(4000, tracer.snapshot().getCount(PayrollTracer.Branch.STANDARD));
+    }
+
+    @Test
+    void shouldFoldTheCountsOfDeadThreads() throws InterruptedException {
+
+        // Given: A tracer used by 100 short lived threads, one after the other
+        PayrollTracer tracer = new PayrollTracer();
+        TracedPaymentService paymentService = new TracedPaymentService(new PaymentServiceRefactor(), tracer);
+        tracer.enable();
+
+        for (int t = 0; t < 100; t++) {
+            Thread thread = new Thread(() -> paymentService.payEmployee(Employee.createRetiredEmployee(1L, "Dale")));
+            thread.start();
+            thread.join();
+        }
+
+        // When: A snapshot is taken
+        PayrollTracer.Snapshot snapshot = tracer.snapshot();
+
+        // Then: The dead threads still count, but their counters are gone
+        assertEquals(100, snapshot.getCount(PayrollTracer.Branch.RETIRED));
+        assertEquals(0, tracer.recorderCount());
+    }
+}
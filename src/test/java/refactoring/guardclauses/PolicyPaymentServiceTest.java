@@ -0,0 +1,100 @@
+package refactoring.guardclauses;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PolicyPaymentServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldPayLikeThePaymentServiceByDefault() {
+
+        // Given: A payment service with the standard policy
+        PolicyPaymentService paymentService = new PolicyPaymentService();
+        PaymentServiceRefactor hardCoded = new PaymentServiceRefactor();
+
+        List<Employee> employees = List.of(
+                Employee.createWorkingEmployee(1L, "Angela"),
+                Employee.createResignedEmployee(2L, "Bob"),
+                Employee.createTerminatedEmployee(3L, "Claire"),
+                Employee.createRetiredEmployee(4L, "Dale"),
+                Employee.createDeadEmployee(5L, "Earl")
+        );
+
+        // Expect: The same payouts as the hard coded amounts
+        for (Employee employee : employees) {
+            assertEquals(hardCoded.payEmployee(employee), paymentService.payEmployee(employee));
+        }
+    }
+
+    @Test
+    void shouldLoadThePolicyWithDepartmentOverrides() throws IOException {
+
+        // Given: A configuration that raises severance, and raises it more for sales
+        Path file = directory.resolve("payouts.properties");
+        Files.write(file, ("SEVERANCE=2000\n" +
+                "sales.SEVERANCE=2500\n" +
+                "sales.east.BUY_OUT=20000\n").getBytes(StandardCharsets.UTF_8));
+
+        // When: The policy is loaded
+        PolicyPaymentService paymentService = new PolicyPaymentService(PayoutPolicy.load(file));
+        Employee terminated = Employee.createTerminatedEmployee(1L, "Claire");
+        Employee retired = Employee.createRetiredEmployee(2L, "Dale");
+
+        // Then: Departments use their overrides, and fall back to the defaults
+        assertEquals(BigDecimal.valueOf(2000), paymentService.payEmployee(terminated));
+        assertEquals(BigDecimal.valueOf(2000), paymentService.payEmployee(terminated, "engineering"));
+        assertEquals(BigDecimal.valueOf(2500), paymentService.payEmployee(terminated, "sales"));
+        assertEquals(BigDecimal.valueOf(20000), paymentService.payEmployee(retired, "sales.east"));
+        assertEquals(BigDecimal.valueOf(2000), paymentService.payEmployee(terminated, "sales.east"));
+        assertEquals(BigDecimal.valueOf(10000), paymentService.payEmployee(retired));
+    }
+
+    @Test
+    void shouldSwapThePolicyBetweenRuns() {
+
+        // Given: A payment service with the standard policy
+        PolicyPaymentService paymentService = new PolicyPaymentService();
+        Employee employee = Employee.createWorkingEmployee(1L, "Angela");
+        PayoutPolicy firstRun = paymentService.getPolicy();
+
+        // When: A new policy is published
+        Properties properties = new Properties();
+        properties.setProperty("STANDARD", "1100");
+        paymentService.setPolicy(PayoutPolicy.fromProperties(properties));
+
+        // Then: New payments use it, while the earlier run's policy is unchanged
+        assertEquals(BigDecimal.valueOf(1100), paymentService.payEmployee(employee));
+        assertEquals(BigDecimal.valueOf(1000), firstRun.payout(employee.getStatus()));
+    }
+
+    @Test
+    void shouldRejectABadConfiguration() {
+
+        // Given: Configurations with an unknown category, a negative amount and paid deceased employees
+        Properties unknownCategory = new Properties();
+        unknownCategory.setProperty("BONUS", "500");
+        Properties negativeAmount = new Properties();
+        negativeAmount.setProperty("STANDARD", "-1");
+        Properties paidZero = new Properties();
+        paidZero.setProperty("sales.ZERO", "100");
+
+        // Expect: None of them to compile into a policy
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PayoutPolicy.fromProperties(unknownCategory));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PayoutPolicy.fromProperties(negativeAmount));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PayoutPolicy.fromProperties(paidZero));
+    }
+}
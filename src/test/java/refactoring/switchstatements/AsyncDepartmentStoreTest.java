@@ -0,0 +1,188 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncDepartmentStoreTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldApplyASingleAsyncDiscount() throws Exception {
+
+        // Given: A loyalty service that gives 10% off
+        StubLoyaltyService loyaltyService = new StubLoyaltyService(0.9);
+
+        // When: We apply the discount
+        Double discounted = AsyncDepartmentStore
+                .applyDiscount(new Payment(100.00), loyaltyService::discount)
+                .get(5, TimeUnit.SECONDS);
+
+        // Then: The discount should be applied correctly
+        assertEquals(90.0, discounted);
+    }
+
+    @Test
+    void shouldKeepTheOrderAndBoundTheRequestsInFlight() throws Exception {
+
+        // Given: A store that allows 4 loyalty requests at a time
+        AsyncDepartmentStore store = new AsyncDepartmentStore(executor, 4);
+        StubLoyaltyService loyaltyService = new StubLoyaltyService(0.5);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            payments.add(new Payment((double) i, PaymentType.CASH));
+        }
+
+        // When: We discount all the payments
+        List<Double> discounted = store
+                .applyDiscounts(payments, store.async(loyaltyService::blockingDiscount))
+                .get(10, TimeUnit.SECONDS);
+
+        // Then: The results are in order and never more than 4 requests ran at once
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i * 0.5, discounted.get(i));
+        }
+        assertTrue(loyaltyService.maxConcurrentRequests.get() <= 4);
+    }
+
+    @Test
+    void shouldHandleStrategiesThatCompleteImmediately() throws Exception {
+
+        // Given: A synchronous strategy and a lot of payments
+        AsyncDepartmentStore store = new AsyncDepartmentStore(Runnable::run, 1);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            payments.add(Payment.createCreditPayment());
+        }
+
+        // When: Every discount completes on the calling thread
+        List<Double> discounted = store
+                .applyDiscounts(payments, payment -> CompletableFuture.completedFuture(80.0))
+                .get();
+
+        // Then: There's no stack overflow
+        assertEquals(100_000, discounted.size());
+    }
+
+    @Test
+    void shouldFailWhenADiscountFails() {
+
+        // Given: A loyalty service that is down
+        AsyncDepartmentStore store = new AsyncDepartmentStore(executor, 2);
+        List<Payment> payments = List.of(Payment.createCashPayment(), Payment.createDebitPayment());
+
+        // Expect: The whole batch to fail
+        CompletableFuture<List<Double>> result = store.applyDiscounts(
+                payments, payment -> CompletableFuture.failedFuture(new IllegalStateException("Loyalty service is down"))
+        );
+        Assertions.assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldFailWhenTheExecutorIsShutDownMidBatch() {
+
+        // Given: An executor that gets shut down while the first discount runs
+        ExecutorService closingExecutor = Executors.newSingleThreadExecutor();
+        AsyncDepartmentStore store = new AsyncDepartmentStore(closingExecutor, 1);
+        List<Payment> payments = List.of(Payment.createCashPayment(), Payment.createDebitPayment());
+
+        // When: The second discount can't be started
+        CompletableFuture<List<Double>> result = store.applyDiscounts(payments, store.async(payment -> {
+            closingExecutor.shutdown();
+            return 70.0;
+        }));
+
+        // Then: The batch fails instead of never completing
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    void shouldRunStrategiesThatBlockOnTheExecutor() throws Exception {
+
+        // Given: A strategy that blocks before handing back an already completed discount
+        AsyncDepartmentStore store = new AsyncDepartmentStore(executor, 4);
+        StubLoyaltyService loyaltyService = new StubLoyaltyService(0.5);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            payments.add(new Payment((double) i, PaymentType.CASH));
+        }
+
+        // When: We discount all the payments
+        List<Double> discounted = store
+                .applyDiscounts(payments, payment -> CompletableFuture.completedFuture(loyaltyService.blockingDiscount(payment)))
+                .get(10, TimeUnit.SECONDS);
+
+        // Then: The calls still overlapped, up to the limit
+        assertEquals(20, discounted.size());
+        assertTrue(loyaltyService.maxConcurrentRequests.get() > 1);
+        assertTrue(loyaltyService.maxConcurrentRequests.get() <= 4);
+    }
+
+    @Test
+    void shouldFailWhenAStrategyReturnsNull() {
+
+        // Given: A strategy that forgets to return a stage
+        AsyncDepartmentStore store = new AsyncDepartmentStore(executor, 2);
+        List<Payment> payments = List.of(Payment.createCashPayment(), Payment.createDebitPayment());
+
+        // Expect: The batch to fail instead of never completing
+        CompletableFuture<List<Double>> result = store.applyDiscounts(payments, payment -> null);
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof NullPointerException);
+    }
+
+    /*
+    Stands in for the remote loyalty service, with a bit of latency
+    and a count of how many requests it's handling at once.
+     */
+    private class StubLoyaltyService {
+
+        private final double rate;
+        private final AtomicInteger concurrentRequests = new AtomicInteger();
+        private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+        private StubLoyaltyService(double rate) {
+            this.rate = rate;
+        }
+
+        CompletableFuture<Double> discount(Payment payment) {
+            return CompletableFuture.supplyAsync(() -> blockingDiscount(payment), executor);
+        }
+
+        Double blockingDiscount(Payment payment) {
+            int concurrent = concurrentRequests.incrementAndGet();
+            maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+            try {
+                Thread.sleep(2);
+                return payment.getValue() * rate;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                concurrentRequests.decrementAndGet();
+            }
+        }
+    }
+}
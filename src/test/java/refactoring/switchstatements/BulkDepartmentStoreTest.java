@@ -0,0 +1,45 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkDepartmentStoreTest {
+
+    @Test
+    void shouldMatchTheSwitchStatementDiscounts() {
+
+        // Given: We have a some payments
+        List<Payment> payments = List.of(
+                new Payment(100.00, PaymentType.CASH),
+                new Payment(50.00, PaymentType.CREDIT),
+                new Payment(10.00, PaymentType.DEBIT)
+        );
+        double[] values = new double[payments.size()];
+        byte[] types = new byte[payments.size()];
+        BulkDepartmentStore.toColumns(payments, values, types);
+
+        // When: We apply the discounts in bulk
+        double[] discounted = new double[payments.size()];
+        new BulkDepartmentStore().applyDiscounts(values, types, discounted);
+
+        // Then: They match the one at a time discounts
+        DepartmentStore store = new DepartmentStore();
+        for (int i = 0; i < payments.size(); i++) {
+            assertEquals(store.applyDiscount(payments.get(i)), discounted[i]);
+        }
+    }
+
+    @Test
+    void shouldRejectMismatchedArrays() {
+
+        // Expect: The arrays must line up
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new BulkDepartmentStore().applyDiscounts(new double[2], new byte[1], new double[2])
+        );
+    }
+}
@@ -69,4 +69,24 @@ public class DepartmentStoreTest {
 
     }
 
+    @Test
+    void applyDiscountGeneratedDispatch() {
+
+        // Given: We have a some payments
+        Payment cash = new Payment(100.00, PaymentType.CASH);
+        Payment credit = new Payment(100.00, PaymentType.CREDIT);
+        Payment debit = new Payment(100.00, PaymentType.DEBIT);
+
+        // When: We apply the discounts through the generated dispatch
+        Double cashDiscount = DiscountDispatch.applyDiscount(cash);
+        Double creditDiscount = DiscountDispatch.applyDiscount(credit);
+        Double debitDiscount = DepartmentStoreFunctionalRefactor.applyDiscount(debit, DiscountDispatch.strategyFor(PaymentType.DEBIT));
+
+        // Then: The discounts should be applied correctly
+        assertEquals(70.0, cashDiscount);
+        assertEquals(80.0, creditDiscount);
+        assertEquals(90.0, debitDiscount);
+
+    }
+
 }
@@ -0,0 +1,138 @@
+package refactoring.switchstatements;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+Compares the switch, polymorphic, functional and generated dispatch discount strategies
+against the bulk array discount, over a random mix of payment types.
+
+Run the main() method from your IDE, see the README for running it from the command line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountDispatchBenchmark {
+
+    private static final List<Function<Payment, Double>> STRATEGIES = strategiesByType();
+
+    @Param({"10000"})
+    private int size;
+
+    private Payment[] payments;
+    private PaymentRefactor[] paymentRefactors;
+    private double[] values;
+    private byte[] types;
+    private double[] discounted;
+
+    private final DepartmentStore departmentStore = new DepartmentStore();
+    private final DepartmentStoreRefactor departmentStoreRefactor = new DepartmentStoreRefactor();
+    private final BulkDepartmentStore bulkDepartmentStore = new BulkDepartmentStore();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        PaymentType[] paymentTypes = PaymentType.values();
+
+        payments = new Payment[size];
+        paymentRefactors = new PaymentRefactor[size];
+        values = new double[size];
+        types = new byte[size];
+        discounted = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            double value = 1 + random.nextInt(10_000) / 100.0;
+            PaymentType type = paymentTypes[random.nextInt(paymentTypes.length)];
+
+            payments[i] = new Payment(value, type);
+            paymentRefactors[i] = toPaymentRefactor(value, type);
+            values[i] = value;
+            types[i] = (byte) type.ordinal();
+        }
+    }
+
+    @Benchmark
+    public void switchStatement(Blackhole blackhole) {
+        for (Payment payment : payments) {
+            blackhole.consume(departmentStore.applyDiscount(payment));
+        }
+    }
+
+    @Benchmark
+    public void polymorphism(Blackhole blackhole) {
+        for (PaymentRefactor payment : paymentRefactors) {
+            blackhole.consume(departmentStoreRefactor.applyDiscount(payment));
+        }
+    }
+
+    @Benchmark
+    public void functionStrategy(Blackhole blackhole) {
+        for (Payment payment : payments) {
+            Function<Payment, Double> strategy = STRATEGIES.get(payment.getType().ordinal());
+            blackhole.consume(DepartmentStoreFunctionalRefactor.applyDiscount(payment, strategy));
+        }
+    }
+
+    @Benchmark
+    public void generatedDispatch(Blackhole blackhole) {
+        for (Payment payment : payments) {
+            blackhole.consume(DiscountDispatch.applyDiscount(payment));
+        }
+    }
+
+    @Benchmark
+    public double[] bulkArrays() {
+        bulkDepartmentStore.applyDiscounts(values, types, discounted);
+        return discounted;
+    }
+
+    static PaymentRefactor toPaymentRefactor(double value, PaymentType type) {
+        switch (type) {
+            case CASH:
+                return new Cash(value);
+            case CREDIT:
+                return new Credit(value);
+            default:
+                return new Debit(value);
+        }
+    }
+
+    private static List<Function<Payment, Double>> strategiesByType() {
+        List<Function<Payment, Double>> strategies = new ArrayList<>(
+                Collections.nCopies(PaymentType.values().length, null));
+        strategies.set(PaymentType.CASH.ordinal(), DepartmentStoreFunctionalRefactor.CASH_DISCOUNT);
+        strategies.set(PaymentType.CREDIT.ordinal(), DepartmentStoreFunctionalRefactor.CREDIT_DISCOUNT);
+        strategies.set(PaymentType.DEBIT.ordinal(), DepartmentStoreFunctionalRefactor.DEBIT_DISCOUNT);
+        return Collections.unmodifiableList(strategies);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DiscountDispatchBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
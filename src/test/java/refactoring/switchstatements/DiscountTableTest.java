@@ -0,0 +1,85 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DiscountTableTest {
+
+    @Test
+    void shouldStartWithTheStandardRates() {
+
+        // Given: A new discount table
+        DiscountTable table = new DiscountTable();
+
+        // Expect: The standard rates
+        assertEquals(0.7, table.rate(PaymentType.CASH));
+        assertEquals(0.8, table.rate(PaymentType.CREDIT));
+        assertEquals(0.9, table.rate(PaymentType.DEBIT));
+    }
+
+    @Test
+    void shouldApplyUpdatedRatesImmediately() {
+
+        // Given: A department store using its own table
+        DiscountTable table = new DiscountTable();
+        DepartmentStore store = new DepartmentStore(table);
+        Payment cash = new Payment(100.00, PaymentType.CASH);
+
+        // When: The cash rate changes
+        table.setRate(PaymentType.CASH, 0.5);
+
+        // Then: The next discount uses the new rate
+        assertEquals(50.0, store.applyDiscount(cash));
+    }
+
+    @Test
+    void shouldReplaceEveryRateAtOnce() {
+
+        // Given: A table
+        DiscountTable table = new DiscountTable();
+
+        // When: All the rates are replaced
+        table.replaceAll(Map.of(PaymentType.CASH, 0.1, PaymentType.CREDIT, 0.2, PaymentType.DEBIT, 0.3));
+
+        // Then: The bulk discounts use the new rates
+        double[] discounted = new double[3];
+        new BulkDepartmentStore(table).applyDiscounts(
+                new double[]{100, 100, 100}, new byte[]{0, 1, 2}, discounted
+        );
+        assertEquals(10.0, discounted[0]);
+        assertEquals(20.0, discounted[1]);
+        assertEquals(30.0, discounted[2]);
+    }
+
+    @Test
+    void shouldRejectIncompleteOrInvalidRates() {
+
+        // Given: A table
+        DiscountTable table = new DiscountTable();
+
+        // Expect: Missing or negative rates to be rejected
+        Assertions.assertThrows(
+                IllegalArgumentException.class, () -> table.replaceAll(Map.of(PaymentType.CASH, 0.5))
+        );
+        Assertions.assertThrows(
+                IllegalArgumentException.class, () -> table.setRate(PaymentType.DEBIT, -1)
+        );
+    }
+
+    @Test
+    void shouldNotLetTheStandardTableChange() {
+
+        // Given: The table shared by every store that isn't given one
+        DiscountTable standard = DiscountTable.standard();
+
+        // Expect: Changes to be refused, and the standard rates to stay
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> standard.setRate(PaymentType.CASH, 0.5));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> standard.replaceAll(
+                Map.of(PaymentType.CASH, 0.1, PaymentType.CREDIT, 0.2, PaymentType.DEBIT, 0.3)));
+        assertEquals(0.7, standard.rate(PaymentType.CASH));
+    }
+}
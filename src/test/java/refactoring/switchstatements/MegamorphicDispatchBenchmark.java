@@ -0,0 +1,174 @@
+package refactoring.switchstatements;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+The JIT inlines a virtual call when a call site has only seen one receiver type (monomorphic),
+or two with a type check (bimorphic). From three types on the call site is megamorphic
+and falls back to a vtable/itable call that can't be inlined.
+
+This benchmark measures how the switch, the subclass and the function strategies hold up
+as the mix of payment types at the call site grows. The subclass and function strategies
+get a fourth and fifth synthetic payment type (gift card and store credit) to go past three.
+The switch is limited to the PaymentType constants, so its megamorphic mix uses all three.
+
+Every mix runs in its own fork so the type profile of one mix doesn't pollute the next.
+Pass -Dinlining=true to main() to print the JIT inlining decisions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MegamorphicDispatchBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private static final Function<Payment, Double> GIFT_CARD_DISCOUNT = payment -> payment.getValue() * 0.95;
+    private static final Function<Payment, Double> STORE_CREDIT_DISCOUNT = payment -> payment.getValue() * 0.85;
+
+    private static final List<Function<Payment, Double>> FUNCTIONS = List.of(
+            DepartmentStoreFunctionalRefactor.CASH_DISCOUNT,
+            DepartmentStoreFunctionalRefactor.CREDIT_DISCOUNT,
+            DepartmentStoreFunctionalRefactor.DEBIT_DISCOUNT,
+            GIFT_CARD_DISCOUNT,
+            STORE_CREDIT_DISCOUNT
+    );
+
+    public enum Mix {
+        MONOMORPHIC(1), BIMORPHIC(2), MEGAMORPHIC(5);
+
+        private final int types;
+
+        Mix(int types) {
+            this.types = types;
+        }
+    }
+
+    @Param
+    private Mix mix;
+
+    private Payment[] payments;
+    private PaymentRefactor[] paymentRefactors;
+    private List<Function<Payment, Double>> strategies;
+
+    private final DepartmentStore departmentStore = new DepartmentStore();
+    private final DepartmentStoreRefactor departmentStoreRefactor = new DepartmentStoreRefactor();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        PaymentType[] paymentTypes = PaymentType.values();
+        int switchTypes = Math.min(mix.types, paymentTypes.length);
+
+        payments = new Payment[SIZE];
+        paymentRefactors = new PaymentRefactor[SIZE];
+        strategies = new ArrayList<>(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            double value = 1 + random.nextInt(10_000) / 100.0;
+            int type = random.nextInt(mix.types);
+
+            payments[i] = new Payment(value, paymentTypes[random.nextInt(switchTypes)]);
+            paymentRefactors[i] = toPaymentRefactor(value, type);
+            strategies.add(FUNCTIONS.get(type));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void switchStatement(Blackhole blackhole) {
+        for (Payment payment : payments) {
+            blackhole.consume(departmentStore.applyDiscount(payment));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void polymorphism(Blackhole blackhole) {
+        for (PaymentRefactor payment : paymentRefactors) {
+            blackhole.consume(departmentStoreRefactor.applyDiscount(payment));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void functionStrategy(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; i++) {
+            blackhole.consume(DepartmentStoreFunctionalRefactor.applyDiscount(payments[i], strategies.get(i)));
+        }
+    }
+
+    private static PaymentRefactor toPaymentRefactor(double value, int type) {
+        switch (type) {
+            case 0:
+                return new Cash(value);
+            case 1:
+                return new Credit(value);
+            case 2:
+                return new Debit(value);
+            case 3:
+                return new GiftCard(value);
+            default:
+                return new StoreCredit(value);
+        }
+    }
+
+    static class GiftCard extends PaymentRefactor {
+
+        GiftCard(Double value) {
+            super(value);
+        }
+
+        @Override
+        Double applyDiscount() {
+            return getValue() * 0.95;
+        }
+    }
+
+    static class StoreCredit extends PaymentRefactor {
+
+        StoreCredit(Double value) {
+            super(value);
+        }
+
+        @Override
+        Double applyDiscount() {
+            return getValue() * 0.85;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(MegamorphicDispatchBenchmark.class.getSimpleName());
+
+        if (Boolean.getBoolean("inlining")) {
+            options.jvmArgsAppend("-XX:+UnlockDiagnosticVMOptions", "-XX:+PrintInlining");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
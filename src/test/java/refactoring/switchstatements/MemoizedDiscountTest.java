@@ -0,0 +1,108 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MemoizedDiscountTest {
+
+    @Test
+    void shouldOnlyComputeEachPricePointOnce() {
+
+        // Given: A memoized cash discount
+        AtomicInteger calls = new AtomicInteger();
+        Function<Payment, Double> countingDiscount = payment -> {
+            calls.incrementAndGet();
+            return DepartmentStoreFunctionalRefactor.CASH_DISCOUNT.apply(payment);
+        };
+        MemoizedDiscount discount = MemoizedDiscount.of(countingDiscount, 1000);
+
+        // When: The same two prices are discounted many times
+        Double first = null;
+        for (int i = 0; i < 100; i++) {
+            Double discounted = DepartmentStoreFunctionalRefactor.applyDiscount(new Payment(100.00), discount);
+            DepartmentStoreFunctionalRefactor.applyDiscount(new Payment(50.00), discount);
+
+            if (null == first) {
+                first = discounted;
+            }
+            assertSame(first, discounted);
+        }
+
+        // Then: The strategy only ran once per price
+        assertEquals(70.0, first);
+        assertEquals(2, calls.get());
+        assertEquals(2, discount.getMissCount());
+        assertEquals(198, discount.getHitCount());
+    }
+
+    @Test
+    void shouldKeepPaymentTypesApart() {
+
+        // Given: A strategy that depends on the payment type
+        MemoizedDiscount discount = MemoizedDiscount.of(new DepartmentStore()::applyDiscount, 1000);
+
+        // Expect: The same amount to be discounted per type
+        assertEquals(70.0, discount.apply(new Payment(100.00, PaymentType.CASH)));
+        assertEquals(80.0, discount.apply(new Payment(100.00, PaymentType.CREDIT)));
+        assertEquals(90.0, discount.apply(new Payment(100.00, PaymentType.DEBIT)));
+    }
+
+    @Test
+    void shouldUseTheNewRateAsSoonAsItChanges() {
+
+        // Given: A memoized strategy over a discount table, with a cached price
+        DiscountTable discounts = new DiscountTable();
+        MemoizedDiscount discount = MemoizedDiscount.of(
+                payment -> payment.getValue() * discounts.rate(payment.getType()), 1000, discounts);
+        assertEquals(70.0, discount.apply(new Payment(100.00, PaymentType.CASH)));
+
+        // When: The cash rate changes
+        discounts.setRate(PaymentType.CASH, 0.5);
+
+        // Then: The next payment gets the new rate, not the cached result
+        assertEquals(50.0, discount.apply(new Payment(100.00, PaymentType.CASH)));
+        assertEquals(50.0, discount.apply(new Payment(100.00, PaymentType.CASH)));
+        assertEquals(2, discount.getMissCount());
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedEntry() {
+
+        // Given: A full cache
+        LongLruCache<String> cache = new LongLruCache<>(2);
+        cache.put(1, "one");
+        cache.put(2, "two");
+
+        // When: The first key is used and a third one is added
+        cache.get(1);
+        cache.put(3, "three");
+
+        // Then: The second key is evicted
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("three", cache.get(3));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void shouldFindEveryKeyAfterManyEvictions() {
+
+        // Given: A small cache that sees many more keys than it can hold
+        LongLruCache<Long> cache = new LongLruCache<>(64);
+        for (long key = 0; key < 10_000; key++) {
+            cache.put(key, key);
+        }
+
+        // Expect: The last 64 keys to still be there
+        for (long key = 10_000 - 64; key < 10_000; key++) {
+            assertEquals(key, cache.get(key));
+        }
+        assertNull(cache.get(10_000 - 65));
+    }
+}
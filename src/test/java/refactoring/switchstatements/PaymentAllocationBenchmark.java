@@ -0,0 +1,97 @@
+package refactoring.switchstatements;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Compares creating a new Payment for every price against the shared instances
+handed out by the static factories and Payment.of().
+
+The GC profiler is enabled, look at the gc.alloc.rate.norm column
+for the number of bytes allocated per payment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentAllocationBenchmark {
+
+    private static final int SIZE = 1024;
+    // A few hundred distinct price points, like a real store
+    private static final int PRICE_POINTS = 300;
+
+    private double[] prices;
+    private PaymentType[] types;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        PaymentType[] paymentTypes = PaymentType.values();
+
+        prices = new double[SIZE];
+        types = new PaymentType[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            prices[i] = 0.99 + random.nextInt(PRICE_POINTS);
+            types[i] = paymentTypes[random.nextInt(paymentTypes.length)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void newFixedAmountPayment(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; i++) {
+            blackhole.consume(new Payment(100.0, PaymentType.CASH));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void staticFactoryPayment(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; i++) {
+            blackhole.consume(Payment.createCashPayment());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void newPricedPayment(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; i++) {
+            blackhole.consume(new Payment(prices[i], types[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void cachedPricedPayment(Blackhole blackhole) {
+        for (int i = 0; i < SIZE; i++) {
+            blackhole.consume(Payment.of(prices[i], types[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+}
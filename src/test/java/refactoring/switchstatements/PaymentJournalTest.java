@@ -0,0 +1,197 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayEveryJournaledPaymentInOrder() throws IOException {
+
+        // Given: Some discounted payments in the journal
+        DepartmentStore store = new DepartmentStore();
+        List<Payment> payments = List.of(
+                new Payment(100.00, PaymentType.CASH),
+                new Payment(50.00, PaymentType.CREDIT),
+                new Payment(10.00, PaymentType.DEBIT)
+        );
+        try (PaymentJournal journal = new PaymentJournal(directory, 1024)) {
+            for (Payment payment : payments) {
+                journal.append(payment, store.applyDiscount(payment));
+            }
+        }
+
+        // When: We replay it with a half off discount
+        List<Double> recorded = new ArrayList<>();
+        List<Double> replayed = new ArrayList<>();
+        long count = new PaymentJournalReader(directory).replay(
+                payment -> payment.getValue() * 0.5,
+                (payment, recordedDiscount, replayedDiscount) -> {
+                    recorded.add(recordedDiscount);
+                    replayed.add(replayedDiscount);
+                }
+        );
+
+        // Then: We get back both discounts
+        assertEquals(3, count);
+        assertEquals(List.of(70.0, 40.0, 9.0), recorded);
+        assertEquals(List.of(50.0, 25.0, 5.0), replayed);
+    }
+
+    @Test
+    void shouldRollSegmentsAndKeepAppendingAfterReopening() throws IOException {
+
+        // Given: Segments that hold 10 records each
+        long segmentSize = PaymentJournal.HEADER_BYTES + 10L * PaymentJournal.RECORD_BYTES;
+        try (PaymentJournal journal = new PaymentJournal(directory, segmentSize)) {
+            for (int i = 0; i < 25; i++) {
+                journal.append(Payment.createCashPayment(), 70.0);
+            }
+        }
+
+        // When: The journal is reopened and appended to
+        try (PaymentJournal journal = new PaymentJournal(directory, segmentSize)) {
+            journal.append(Payment.createDebitPayment(), 90.0);
+        }
+
+        // Then: Nothing is lost or overwritten
+        PaymentJournalReader reader = new PaymentJournalReader(directory);
+        assertEquals(4, reader.segments().size());
+        assertEquals(26, reader.replay(new DepartmentStore()::applyDiscount, (payment, recorded, replayed) -> {
+            assertEquals(recorded, replayed);
+        }));
+    }
+
+    @Test
+    void shouldNotCreateEmptySegmentsWhenReopened() throws IOException {
+
+        // Given: A journal with one entry
+        try (PaymentJournal journal = new PaymentJournal(directory, 1024)) {
+            journal.append(Payment.createCashPayment(), 70.0);
+        }
+
+        // When: It's reopened a few times without appending anything
+        for (int i = 0; i < 3; i++) {
+            try (PaymentJournal journal = new PaymentJournal(directory, 1024)) {
+                journal.sync();
+            }
+        }
+
+        // Then: There's still only the one segment
+        assertEquals(1, new PaymentJournalReader(directory).segments().size());
+    }
+
+    @Test
+    void shouldKeepEveryEntryWhenManyThreadsSync() throws Exception {
+
+        // Given: A journal shared by 4 threads, rolling every 100 records
+        long segmentSize = PaymentJournal.HEADER_BYTES + 100L * PaymentJournal.RECORD_BYTES;
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+
+        try (PaymentJournal journal = new PaymentJournal(directory, segmentSize)) {
+
+            // When: Each one appends and syncs 250 times
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 250; i++) {
+                            journal.append(Payment.createDebitPayment(), 90.0);
+                            journal.sync();
+                        }
+                    } catch (IOException e) {
+                        failures.add(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        // Then: Every entry can be replayed
+        assertTrue(failures.isEmpty());
+        assertEquals(1000, new PaymentJournalReader(directory).replay(
+                new DepartmentStore()::applyDiscount, (payment, recorded, replayed) -> { }));
+    }
+
+    @Test
+    void shouldSkipATornRecordAtTheEnd() throws IOException {
+
+        // Given: A journal whose last write was cut short
+        try (PaymentJournal journal = new PaymentJournal(directory, 1024)) {
+            journal.append(Payment.createCreditPayment(), 80.0);
+        }
+        Path segment = new PaymentJournalReader(directory).segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 1, 2}));
+        }
+
+        // Expect: Only the complete record to be replayed
+        List<Payment> replayed = new ArrayList<>();
+        new PaymentJournalReader(directory).replay(
+                DepartmentStoreFunctionalRefactor.CREDIT_DISCOUNT,
+                (payment, recorded, discounted) -> replayed.add(payment)
+        );
+        assertEquals(1, replayed.size());
+        assertTrue(replayed.get(0).getType() == PaymentType.CREDIT);
+    }
+
+    @Test
+    void shouldRejectACorruptPaymentType() throws IOException {
+
+        // Given: A journal whose only record has an unknown type
+        try (PaymentJournal journal = new PaymentJournal(directory, 1024)) {
+            journal.append(Payment.createCashPayment(), 90.0);
+        }
+        Path segment = new PaymentJournalReader(directory).segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7F}), PaymentJournal.HEADER_BYTES);
+        }
+
+        // Expect: The replay to fail instead of throwing an array index error
+        IOException exception = Assertions.assertThrows(IOException.class,
+                () -> new PaymentJournalReader(directory).replay(
+                        new DepartmentStore()::applyDiscount, (payment, recorded, replayed) -> { }));
+        assertTrue(exception.getMessage().startsWith("Unknown payment type 127 at byte 4"));
+    }
+
+    @Test
+    void shouldOrderSegmentsByNumber() throws IOException {
+
+        // Given: Segments either side of the point where the zero padding runs out
+        Path older = Files.createFile(directory.resolve("payments-999999.journal"));
+        Path newer = Files.createFile(directory.resolve("payments-1000000.journal"));
+        Files.createFile(directory.resolve("payments-notes.journal"));
+
+        // Expect: The newer segment to come last, and other files to be ignored
+        assertEquals(List.of(older, newer), new PaymentJournalReader(directory).segments());
+    }
+
+    @Test
+    void shouldRejectSegmentsTooLargeToMap() {
+
+        // Expect: A segment size the reader couldn't map to be refused
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new PaymentJournal(directory, Integer.MAX_VALUE + 1L));
+    }
+}
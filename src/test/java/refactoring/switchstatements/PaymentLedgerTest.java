@@ -0,0 +1,66 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PaymentLedgerTest {
+
+    @Test
+    void shouldTotalEveryDepartmentStoreVariant() {
+
+        // Given: A ledger wrapped around the three department stores
+        PaymentLedger ledger = new PaymentLedger();
+        Function<Payment, Double> store = ledger.wrap(new DepartmentStore());
+        Map<Class<?>, PaymentType> types = Map.of(
+                Cash.class, PaymentType.CASH, Credit.class, PaymentType.CREDIT, Debit.class, PaymentType.DEBIT);
+        Function<PaymentRefactor, Double> storeRefactor =
+                ledger.wrap(new DepartmentStoreRefactor(), payment -> types.get(payment.getClass()));
+        Function<Payment, Double> functional = ledger.wrap(DepartmentStoreFunctionalRefactor.DEBIT_DISCOUNT);
+
+        // When: Each one discounts a payment
+        store.apply(new Payment(100.00, PaymentType.CASH));
+        storeRefactor.apply(new Credit(100.00));
+        DepartmentStoreFunctionalRefactor.applyDiscount(new Payment(100.00, PaymentType.DEBIT), functional);
+
+        // Then: The totals are recorded per type
+        assertEquals(0, new BigDecimal("70").compareTo(ledger.getTotal(PaymentType.CASH)));
+        assertEquals(0, new BigDecimal("80").compareTo(ledger.getTotal(PaymentType.CREDIT)));
+        assertEquals(0, new BigDecimal("90").compareTo(ledger.getTotal(PaymentType.DEBIT)));
+        assertEquals(1, ledger.getCount(PaymentType.CASH));
+    }
+
+    @Test
+    void shouldNotLoseUpdatesFromConcurrentCheckouts() throws InterruptedException {
+
+        // Given: A ledger shared by 8 checkout threads
+        PaymentLedger ledger = new PaymentLedger(4);
+        Function<Payment, Double> checkout = ledger.wrap(new DepartmentStore());
+
+        // When: Each thread discounts 10,000 cash payments of 0.10
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    checkout.apply(new Payment(0.10, PaymentType.CASH));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then: The total is exact, no floating point drift
+        assertEquals(80_000, ledger.getCount(PaymentType.CASH));
+        assertEquals(0, new BigDecimal("5600").compareTo(ledger.getTotal(PaymentType.CASH)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledger.getTotals().get(PaymentType.DEBIT)));
+    }
+}
@@ -0,0 +1,49 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PaymentTest {
+
+    @Test
+    void shouldReuseTheFixedAmountPayments() {
+
+        // Expect: The same instance every time
+        assertSame(Payment.createCashPayment(), Payment.createCashPayment());
+        assertSame(Payment.createDebitPayment(), Payment.createDebitPayment());
+        assertSame(Payment.createCreditPayment(), Payment.createCreditPayment());
+        assertEquals(PaymentType.CREDIT, Payment.createCreditPayment().getType());
+    }
+
+    @Test
+    void shouldCacheRepeatedPricePoints() {
+
+        // Given: A payment for a common price
+        Payment first = Payment.of(19.99, PaymentType.DEBIT);
+
+        // When: The same price and type come up again
+        Payment second = Payment.of(19.99, PaymentType.DEBIT);
+
+        // Then: The cached payment is returned
+        assertSame(first, second);
+    }
+
+    @Test
+    void shouldNotMixUpTypesOrValues() {
+
+        // Given: Payments with the same value but different types, and vice versa
+        Payment cash = Payment.of(5.0, PaymentType.CASH);
+        Payment credit = Payment.of(5.0, PaymentType.CREDIT);
+        Payment otherCash = Payment.of(6.0, PaymentType.CASH);
+
+        // Expect: Each one keeps its own value and type
+        assertNotSame(cash, credit);
+        assertEquals(PaymentType.CASH, cash.getType());
+        assertEquals(PaymentType.CREDIT, credit.getType());
+        assertEquals(6.0, otherCash.getValue());
+        assertEquals(5.0, Payment.of(5.0, PaymentType.CASH).getValue());
+    }
+}
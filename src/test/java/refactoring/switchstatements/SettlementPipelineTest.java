@@ -0,0 +1,263 @@
+package refactoring.switchstatements;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SettlementPipelineTest {
+
+    @Test
+    void shouldSettleEveryPaymentFromManyProducers() throws InterruptedException {
+
+        // Given: A running pipeline
+        List<SettlementBatch> settled = Collections.synchronizedList(new ArrayList<>());
+        SettlementPipeline pipeline = new SettlementPipeline(
+                new SettlementOptions(100, Duration.ofMillis(5), 1_000_000), new DiscountTable(), settled::add
+        );
+        pipeline.start();
+
+        // When: 4 threads submit 10,000 payments each
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    pipeline.submit(new Payment(100.00, PaymentType.values()[i % 3]));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        pipeline.close();
+
+        // Then: Every payment was settled with its discount
+        Map<PaymentType, Integer> counts = new EnumMap<>(PaymentType.class);
+        Map<PaymentType, Double> totals = new EnumMap<>(PaymentType.class);
+        for (SettlementBatch batch : settled) {
+            assertTrue(batch.getCount() <= 100);
+            counts.merge(batch.getType(), batch.getCount(), Integer::sum);
+            totals.merge(batch.getType(), batch.getDiscountedTotal(), Double::sum);
+        }
+
+        assertEquals(40_000, pipeline.getAcceptedCount());
+        assertEquals(0, pipeline.getQueueDepth());
+        assertEquals(13_336, counts.get(PaymentType.CASH));
+        assertEquals(13_336 * 70.0, totals.get(PaymentType.CASH), 1e-6);
+        assertEquals(13_332 * 90.0, totals.get(PaymentType.DEBIT), 1e-6);
+    }
+
+    @Test
+    void shouldRejectPaymentsWhenTheQueueIsFull() throws InterruptedException {
+
+        // Given: A pipeline with room for one queued payment, whose sink is stuck
+        CountDownLatch settling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SettlementPipeline pipeline = new SettlementPipeline(
+                new SettlementOptions(1, Duration.ZERO, 1), new DiscountTable(), batch -> {
+                    settling.countDown();
+                    awaitQuietly(release);
+                }
+        );
+        pipeline.start();
+        pipeline.submit(Payment.createCashPayment());
+        settling.await();
+
+        // When: Two more payments arrive while the first one is being settled
+        boolean second = pipeline.submit(Payment.createCashPayment());
+        boolean third = pipeline.submit(Payment.createCashPayment());
+
+        // Then: Only the one that fits in the queue is accepted
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(1, pipeline.getRejectedCount());
+        assertEquals(1, pipeline.getPeakQueueDepth());
+
+        release.countDown();
+        pipeline.close();
+        assertEquals(2, pipeline.getBatchesSettled());
+    }
+
+    @Test
+    void shouldSettlePartialBatchesAfterTheLingerTime() throws InterruptedException {
+
+        // Given: A pipeline with a large batch size and a short linger
+        List<SettlementBatch> settled = Collections.synchronizedList(new ArrayList<>());
+        SettlementPipeline pipeline = new SettlementPipeline(
+                new SettlementOptions(1000, Duration.ofMillis(1), 100), new DiscountTable(), settled::add
+        );
+        pipeline.start();
+
+        // When: A single payment is submitted and we wait
+        pipeline.submit(Payment.createCreditPayment());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (settled.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Then: It's settled without waiting for the batch to fill up
+        assertEquals(1, settled.size());
+        assertEquals(80.0, settled.get(0).getDiscountedTotal());
+        pipeline.close();
+    }
+
+    @Test
+    void shouldKeepSettlingWhenTheSinkFails() throws InterruptedException {
+
+        // Given: A pipeline whose sink fails on cash batches
+        List<SettlementBatch> settled = Collections.synchronizedList(new ArrayList<>());
+        SettlementPipeline pipeline = new SettlementPipeline(
+                new SettlementOptions(1, Duration.ZERO, 100), new DiscountTable(), batch -> {
+                    if (batch.getType() == PaymentType.CASH) {
+                        throw new IllegalStateException("Cash register offline");
+                    }
+                    settled.add(batch);
+                }
+        );
+        pipeline.start();
+
+        // When: A cash and a credit payment are submitted
+        pipeline.submit(Payment.createCashPayment());
+        pipeline.submit(Payment.createCreditPayment());
+        pipeline.close();
+
+        // Then: The failure is recorded, and the credit payment is still settled
+        assertEquals(1, pipeline.getBatchesFailed());
+        assertEquals("Cash register offline", pipeline.getLastFailure().getMessage());
+        assertEquals(1, settled.size());
+        assertEquals(PaymentType.CREDIT, settled.get(0).getType());
+    }
+
+    @Test
+    void shouldSettleEveryAcceptedPaymentWhenClosedDuringSubmits() throws InterruptedException {
+
+        // Given: Producers that keep submitting until the pipeline is closed
+        AtomicLong settledPayments = new AtomicLong();
+        SettlementPipeline pipeline = new SettlementPipeline(
+                new SettlementOptions(10, Duration.ofMillis(1), 1_000_000), new DiscountTable(),
+                batch -> settledPayments.addAndGet(batch.getCount())
+        );
+        pipeline.start();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    while (true) {
+                        pipeline.submit(Payment.createDebitPayment());
+                    }
+                } catch (IllegalStateException closed) {
+                    // The pipeline was closed
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+
+        // When: The pipeline is closed while they are submitting
+        Thread.sleep(20);
+        pipeline.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Then: Every accepted payment was settled
+        assertEquals(pipeline.getAcceptedCount(), settledPayments.get());
+    }
+
+    @Test
+    void shouldRejectIncompletePaymentsWithoutLosingTheOthers() throws InterruptedException {
+
+        // Given: A running pipeline
+        List<SettlementBatch> settled = Collections.synchronizedList(new ArrayList<>());
+        SettlementPipeline pipeline = new SettlementPipeline(
+                new SettlementOptions(100, Duration.ofMillis(1), 100), new DiscountTable(), settled::add
+        );
+        pipeline.start();
+
+        // When: Incomplete payments are submitted between good ones
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(Payment.createCashPayment());
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pipeline.submit(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pipeline.submit(new Payment(null, PaymentType.CASH)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pipeline.submit(new Payment(100.0, null)));
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(Payment.createCashPayment());
+        }
+        pipeline.close();
+
+        // Then: Every good payment is settled and the queue depth is back to 0
+        assertEquals(10, pipeline.getAcceptedCount());
+        assertEquals(10, settled.stream().mapToInt(SettlementBatch::getCount).sum());
+        assertEquals(0, pipeline.getQueueDepth());
+        assertEquals(0, pipeline.getBatchesFailed());
+    }
+
+    @Test
+    void shouldCloseWhileProducersKeepRetrying() throws InterruptedException {
+
+        // Given: Producers that ignore the pipeline being closed and keep on submitting
+        SettlementPipeline pipeline = new SettlementPipeline(
+                new SettlementOptions(10, Duration.ofMillis(1), 1_000_000), new DiscountTable(), batch -> { }
+        );
+        pipeline.start();
+
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                while (!stop.get()) {
+                    try {
+                        pipeline.submit(Payment.createCreditPayment());
+                    } catch (IllegalStateException closed) {
+                        // Try again
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+
+        // When: The pipeline is closed
+        Thread closer = new Thread(() -> {
+            try {
+                pipeline.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closer.start();
+        closer.join(5_000);
+
+        // Then: Closing didn't wait for the producers to give up
+        boolean closed = !closer.isAlive();
+        stop.set(true);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(closed);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}